@@ -1,36 +1,35 @@
 import institutions.*;
-import player.*;
-import player.Random;
+import player.Population;
+import report.CsvReportWriter;
 
+import java.io.IOException;
+import java.nio.file.Path;
 import java.util.*;
 
 /**
  * The simulation program allows changing arguments when creating players,
  * the number of draws, the state of the central office,
  * printing the budget contribution and winnings of those who earned above a certain amount.
- * Prints the winning 6 numbers, prize pool (overwrites to 1 if below 2,000,000),
- * individual winnings, and the number of winning tickets for each rank.
+ * Every draw's winning numbers, prize pools, individual winnings and winners per rank go to draws.csv;
+ * with -Dlotto.printDraws=true they are also printed after the run (prize pool overwritten to 1 if below 2,000,000).
  */
 
 public class Presentation {
     // Prints the players who have the most money after the draws
-    public static void printTopWinner(List<Player> players) {
+    public static void printTopWinner(Population players) {
         System.out.println("Player that won the most money after the lottery draws:");
-        long max = 0;
-        Player winner = null;
-
-        for (Player player : players) {
-            if (player.getBalance() > max) {
-                winner = player;
-                max = player.getBalance();
-            }
-        }
-        assert winner != null;
-        System.out.println(winner.getPlayerInfo());
+        int winner = players.richest();
+        assert winner >= 0;
+        System.out.println(players.get(winner).getPlayerInfo());
     }
 
-    public static void main(String[] args) {
-        java.util.Random random = new java.util.Random();
+    public static void main(String[] args) throws IOException {
+        // Optional seed as the first argument makes the whole run reproducible
+        if (args.length > 0) {
+            RandomStreams.setSeed(Long.parseLong(args[0]));
+        }
+        System.out.println("Seed: " + RandomStreams.getSeed());
+        SplittableRandom random = RandomStreams.stream(RandomStreams.Domain.SIMULATION, 0);
         Headquarters headquarters = Headquarters.getHeadquarters();
         // Set to 0 to see the real revenue
         headquarters.setBalance(0);
@@ -40,79 +39,86 @@ public class Presentation {
             new CollectionOffice(i);
         }
 
-        // Creating players (200 of each type)
-        List<Player> players = new ArrayList<>();
-        int numberOfPlayers = 200;
-
-        // Lists of first and last names
+        // Lists of first and last names, shared by all players
         String[] names = {"Jan", "Genowefa", "Piotr", "Marcin", "Oskar", "Wiktor", "Hanna", "Maja", "Mateusz", "Katarzyna"};
         String[] surnames = {"Kowal", "Siano", "Wojcieszek", "Grad", "Guszyn", "Rowek", "Kołodziej", "Geraltek", "Marczyk"};
 
+        // Creating players (200 of each type), stored as rows of a population
+        int numberOfPlayers = 200;
+        Population players = new Population(names, surnames, 4 * numberOfPlayers);
+
         // Minimalist player type
         for (int i = 0; i < numberOfPlayers; i++) {
-            String name = names[random.nextInt(names.length)];
-            String surname = surnames[random.nextInt(surnames.length)];
+            int name = random.nextInt(names.length);
+            int surname = random.nextInt(surnames.length);
             int pesel = random.nextInt(1000000000);
-            players.add(new Minimalist(name, surname, pesel, 100_000_00, random.nextInt(10) + 1));
+            players.addMinimalist(name, surname, pesel, 100_000_00, random.nextInt(10) + 1);
         }
 
         // Random player type
         for (int i = 0; i < numberOfPlayers; i++) {
-            String name = names[random.nextInt(names.length)];
-            String surname = surnames[random.nextInt(surnames.length)];
+            int name = random.nextInt(names.length);
+            int surname = random.nextInt(surnames.length);
             int pesel = random.nextInt(1000000000);
-            players.add(new Random(name, surname, pesel));
+            players.addRandom(name, surname, pesel);
         }
 
         // Fixed ticket player type
+        int[] fixedFormOffices = {4, 2, 3, 9, 5};
         for (int i = 0; i < numberOfPlayers; i++) {
-            String name = names[random.nextInt(names.length)];
-            String surname = surnames[random.nextInt(surnames.length)];
+            int name = random.nextInt(names.length);
+            int surname = random.nextInt(surnames.length);
             int pesel = random.nextInt(1000000000);
             int[][] numbers = new int[8][];
 
             for (int j = 0; j < numbers.length; j++) {
-                numbers[j] = Lottery.generateNumbers();
+                numbers[j] = Lottery.generateNumbers(random);
             }
-            LinkedList<Integer> favouriteOffices = new LinkedList<>(List.of(4, 2, 3, 9, 5));
-            players.add(new FixedForm(name, surname, pesel, 100_000_00, numbers,
-                    favouriteOffices, random.nextInt(10) + 1));
+            players.addFixedForm(name, surname, pesel, 100_000_00, numbers, fixedFormOffices, random.nextInt(10) + 1);
         }
 
         // Fixed number player type
+        int[] fixedNumberOffices = {1, 8, 6, 10, 7};
         for (int i = 0; i < numberOfPlayers; i++) {
-            String name = names[random.nextInt(names.length)];
-            String surname = surnames[random.nextInt(surnames.length)];
+            int name = random.nextInt(names.length);
+            int surname = random.nextInt(surnames.length);
             int pesel = random.nextInt(1000000000);
-            int[] numbers = Lottery.generateNumbers();
+            int[] numbers = Lottery.generateNumbers(random);
 
-            LinkedList<Integer> favouriteOffices = new LinkedList<>(List.of(1, 8, 6, 10, 7));
-            players.add(new FixedNumber(name, surname, pesel, 100_000_00, numbers,
-                    favouriteOffices));
+            players.addFixedNumber(name, surname, pesel, 100_000_00, numbers, fixedNumberOffices);
         }
 
 
-        // Simulate 20 lottery draws
-        for (int l = 1; l <= 20; l++) {
-            for (Player g : players) {
-                g.buyTicket();
-            }
+        // Simulate 20 lottery draws, streaming each draw's results to a CSV file as it completes
+        try (CsvReportWriter report = new CsvReportWriter(Path.of("draws.csv"))) {
+            headquarters.addDrawListener(report);
+
+            for (int l = 1; l <= 20; l++) {
+                players.buyTickets();
 
-            headquarters.lottery();
+                headquarters.lottery();
 
-            for (Player g : players) {
-                g.checkTickets();
+                players.checkTickets();
             }
+
+            headquarters.removeDrawListener(report);
         }
 
-        // Print draw results
-        for (int l = 1; l <= headquarters.getLotteriesCount(); l++) {
-            System.out.println(headquarters.displayResults(l));
+        headquarters.settlePayouts();
+
+        // Draw results are in the CSV; printing them all is optional, as it formats every draw again
+        if (Boolean.getBoolean("lotto.printDraws")) {
+            for (int l = 1; l <= headquarters.getLotteriesCount(); l++) {
+                System.out.println(headquarters.displayResults(l));
+            }
         }
+        System.out.println(headquarters.getLotteriesCount() + " draws, " + headquarters.getLastTicketNumber()
+                + " tickets sold, results in draws.csv");
 
         // Print government budget contributions and central office balance
         System.out.println("Contribution to the state budget: \n" + StateBudget.getBudget().displayBudgetInfo());
         System.out.println(headquarters.displayFunds());
+        headquarters.shutdown();
 
         // Method to display players who earned the most (also displays person's tickets)
 
@@ -0,0 +1,212 @@
+package analysis;
+
+import institutions.*;
+import ticket.*;
+import exceptions.IllegalArgument;
+
+import java.util.*;
+import java.util.stream.IntStream;
+
+/**
+ * Evaluates the bets sold for a draw against all 13,983,816 possible 6-of-49 outcomes.
+ * Instead of scoring every bet against every outcome, bets are packed into bit masks and
+ * spread into counters of the 3-, 4-, 5- and 6-number subsets they contain. The number of bets
+ * containing the subsets of an outcome gives, by inclusion-exclusion, the exact number of bets
+ * with 3, 4, 5 and 6 hits, i.e. the same tiers Lottery.checkTicket fills; pools come from the
+ * same PrizeRules as Headquarters.CalcRewards. Outcomes are swept in parallel by their two
+ * smallest numbers. The counters take about 64 MB whatever the number of bets.
+ */
+public class ExposureEvaluator {
+    private static final int NUMBERS = 49;
+    private static final int PICK = 6;
+    private static final int[][] BINOMIAL = binomials(); // BINOMIAL[n][k] = C(n, k)
+    public static final int ALL_DRAWS = BINOMIAL[NUMBERS][PICK];
+
+    // Positions of the subsets of a six-number outcome, by subset size
+    private static final int[][][] SUBSETS = {null, null, null, subsets(3), subsets(4), subsets(5), subsets(6)};
+
+    private final long numberOfBets; // Bets taking part in the draw
+    private final long jackpot; // Jackpot carried into the draw
+    private final boolean firstDraw; // The first draw pays the jackpot without adding to it
+    private final int[][] containing = new int[PICK + 1][]; // containing[t][rank] = bets containing the t-subset
+
+    // Evaluator for the bets currently sold for the given (not yet conducted) draw
+    public static ExposureEvaluator forDraw(int drawNumber) {
+        Headquarters headquarters = Headquarters.getHeadquarters();
+        if (headquarters.getGame() != Game.LOTTO) {
+            throw new IllegalArgument("Exposure: only 6-of-49 draws can be evaluated, not " + headquarters.getGame() + ".");
+        }
+        if (drawNumber <= headquarters.getLotteriesCount()) {
+            throw new IllegalArgument("Exposure: draw " + drawNumber + " has already been conducted.");
+        }
+
+        List<Long> masks = new ArrayList<>();
+        for (int office : headquarters.getOfficeNumber()) {
+            for (Ticket ticket : headquarters.getOffice(office).getLotteryTickets(drawNumber)) {
+                for (Bet bet : ticket.getCorrectBets()) {
+                    masks.add(bet.toMask());
+                }
+            }
+        }
+
+        long[] packed = new long[masks.size()];
+        for (int i = 0; i < packed.length; i++) {
+            packed[i] = masks.get(i);
+        }
+        return new ExposureEvaluator(packed, headquarters.getJackpot(), drawNumber == 1);
+    }
+
+    // Evaluator for bets packed with Bet.toMask()
+    public ExposureEvaluator(long[] bets, long jackpot, boolean firstDraw) {
+        this.numberOfBets = bets.length;
+        this.jackpot = jackpot;
+        this.firstDraw = firstDraw;
+
+        for (int t = 3; t <= PICK; t++) {
+            containing[t] = new int[BINOMIAL[NUMBERS][t]];
+        }
+
+        int[] numbers = new int[PICK];
+        for (long mask : bets) {
+            if (Long.bitCount(mask) != PICK || (mask & ~validNumbers()) != 0) {
+                throw new IllegalArgument("Exposure: bet is not 6 distinct numbers from 1 to 49.");
+            }
+
+            long rest = mask;
+            for (int i = 0; i < PICK; i++) {
+                numbers[i] = Long.numberOfTrailingZeros(rest) - 1; // 0-based
+                rest &= rest - 1;
+            }
+            for (int t = 3; t <= PICK; t++) {
+                for (int[] subset : SUBSETS[t]) {
+                    containing[t][rank(numbers, subset)]++;
+                }
+            }
+        }
+    }
+
+    // Sweeps all outcomes; keeps the given number of outcomes with the most winning bets
+    public ExposureReport evaluate(int topCombinations) {
+        if (topCombinations < 0) {
+            throw new IllegalArgument("Exposure: number of top combinations must be >= 0");
+        }
+
+        // Tasks are pairs of the two smallest numbers, about a thousand of uneven size
+        int[] pairs = IntStream.range(0, NUMBERS - PICK + 1)
+                .flatMap(a -> IntStream.range(a + 1, NUMBERS - PICK + 2).map(b -> a * NUMBERS + b))
+                .toArray();
+
+        return Arrays.stream(pairs).parallel()
+                .mapToObj(pair -> sweep(pair / NUMBERS, pair % NUMBERS, topCombinations))
+                .reduce((left, right) -> left.merge(right, topCombinations))
+                .orElseThrow();
+    }
+
+    // All outcomes whose two smallest (0-based) numbers are a and b
+    private ExposureReport sweep(int a, int b, int topCombinations) {
+        ExposureReport report = new ExposureReport(numberOfBets);
+        int[] draw = {a, b, 0, 0, 0, 0};
+        int[] winners = new int[4];
+        long[] pools = new long[4];
+
+        for (int c = b + 1; c < NUMBERS - 3; c++) {
+            draw[2] = c;
+            for (int d = c + 1; d < NUMBERS - 2; d++) {
+                draw[3] = d;
+                for (int e = d + 1; e < NUMBERS - 1; e++) {
+                    draw[4] = e;
+                    for (int f = e + 1; f < NUMBERS; f++) {
+                        draw[5] = f;
+                        countWinners(draw, winners);
+                        long payout = payout(winners, pools);
+                        report.add(draw, winners, payout, topCombinations);
+                    }
+                }
+            }
+        }
+        return report;
+    }
+
+    /*
+     * Bets with exactly k hits from the numbers of bets containing each t-subset of the outcome:
+     * N_t = sum over k >= t of C(k, t) * E_k, solved from six hits down
+     */
+    private void countWinners(int[] draw, int[] winners) {
+        long n3 = containingSubsets(draw, 3);
+        long n4 = containingSubsets(draw, 4);
+        long n5 = containingSubsets(draw, 5);
+        long n6 = containingSubsets(draw, 6);
+
+        long six = n6;
+        long five = n5 - 6 * six;
+        long four = n4 - 5 * five - 15 * six;
+        long three = n3 - 4 * four - 10 * five - 20 * six;
+
+        winners[0] = (int) six;
+        winners[1] = (int) five;
+        winners[2] = (int) four;
+        winners[3] = (int) three;
+    }
+
+    // Sum over the t-subsets of the outcome of the bets containing them
+    private long containingSubsets(int[] draw, int t) {
+        int[] counts = containing[t];
+        long sum = 0;
+        for (int[] subset : SUBSETS[t]) {
+            sum += counts[rank(draw, subset)];
+        }
+        return sum;
+    }
+
+    // Amount actually paid out for the given winners; an unwon first prize rolls over and costs nothing
+    private long payout(int[] winners, long[] pools) {
+        PrizeRules.rewards(numberOfBets, winners, jackpot, firstDraw, pools);
+        long paid = 0;
+        for (int tier = 0; tier < winners.length; tier++) {
+            if (winners[tier] > 0) {
+                paid += pools[tier] / winners[tier] * winners[tier];
+            }
+        }
+        return paid;
+    }
+
+    // Colexicographic rank of the chosen positions of a sorted 0-based combination
+    private static int rank(int[] numbers, int[] positions) {
+        int rank = 0;
+        for (int i = 0; i < positions.length; i++) {
+            rank += BINOMIAL[numbers[positions[i]]][i + 1];
+        }
+        return rank;
+    }
+
+    private static long validNumbers() {
+        return ((1L << NUMBERS) - 1) << 1; // bits 1..49
+    }
+
+    private static int[][] binomials() {
+        int[][] c = new int[NUMBERS + 1][PICK + 1];
+        for (int n = 0; n <= NUMBERS; n++) {
+            c[n][0] = 1;
+            for (int k = 1; k <= Math.min(n, PICK); k++) {
+                c[n][k] = c[n - 1][k - 1] + (k <= n - 1 ? c[n - 1][k] : 0);
+            }
+        }
+        return c;
+    }
+
+    // All increasing position tuples of the given size out of six
+    private static int[][] subsets(int size) {
+        List<int[]> result = new ArrayList<>();
+        for (int mask = 0; mask < 1 << PICK; mask++) {
+            if (Integer.bitCount(mask) == size) {
+                int[] positions = new int[size];
+                int j = 0;
+                for (int i = 0; i < PICK; i++) {
+                    if ((mask & 1 << i) != 0) positions[j++] = i;
+                }
+                result.add(positions);
+            }
+        }
+        return result.toArray(new int[0][]);
+    }
+}
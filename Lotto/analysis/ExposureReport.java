@@ -0,0 +1,123 @@
+package analysis;
+
+import java.util.*;
+
+/**
+ * Payout exposure of a draw over all possible outcomes: worst-case liability,
+ * expected payout and the outcomes with the most winning bets. Amounts are in grosz.
+ * Partial reports of the parallel sweep are merged into the final one.
+ */
+public class ExposureReport {
+    private final long numberOfBets; // Bets taking part in the draw
+    private long outcomes; // Outcomes evaluated
+    private double totalPayout; // Sum of payouts over the outcomes
+    private long worstLiability; // Largest payout of a single outcome
+    private int[] worstOutcome; // Outcome with the largest payout
+    private final PriorityQueue<Outcome> top = new PriorityQueue<>(Comparator.comparingLong(Outcome::winningBets));
+
+    // Outcome of a draw: winning numbers, winning bets per tier and total payout
+    public record Outcome(int[] numbers, int[] winners, long payout) {
+        public long winningBets() {
+            long sum = 0;
+            for (int w : winners) {
+                sum += w;
+            }
+            return sum;
+        }
+
+        @Override
+        public String toString() {
+            return Arrays.toString(numbers) + " winners " + Arrays.toString(winners)
+                    + " payout " + payout / 100 + " zł " + payout % 100 + " gr";
+        }
+    }
+
+    protected ExposureReport(long numberOfBets) {
+        this.numberOfBets = numberOfBets;
+    }
+
+    // Records one outcome given as sorted 0-based numbers; copies only what it keeps
+    protected void add(int[] draw, int[] winners, long payout, int topCombinations) {
+        outcomes++;
+        totalPayout += payout;
+        if (worstOutcome == null || payout > worstLiability) {
+            worstLiability = payout;
+            worstOutcome = toNumbers(draw);
+        }
+
+        long winningBets = (long) winners[0] + winners[1] + winners[2] + winners[3];
+        if (topCombinations > 0 && (top.size() < topCombinations || winningBets > top.peek().winningBets())) {
+            top.add(new Outcome(toNumbers(draw), winners.clone(), payout));
+            if (top.size() > topCombinations) {
+                top.poll();
+            }
+        }
+    }
+
+    protected ExposureReport merge(ExposureReport other, int topCombinations) {
+        outcomes += other.outcomes;
+        totalPayout += other.totalPayout;
+        if (worstOutcome == null || (other.worstOutcome != null && other.worstLiability > worstLiability)) {
+            worstLiability = other.worstLiability;
+            worstOutcome = other.worstOutcome;
+        }
+        for (Outcome outcome : other.top) {
+            top.add(outcome);
+            if (top.size() > topCombinations) {
+                top.poll();
+            }
+        }
+        return this;
+    }
+
+    private static int[] toNumbers(int[] draw) {
+        int[] numbers = new int[draw.length];
+        for (int i = 0; i < draw.length; i++) {
+            numbers[i] = draw[i] + 1;
+        }
+        return numbers;
+    }
+
+    public long getNumberOfBets() {
+        return numberOfBets;
+    }
+
+    public long getOutcomes() {
+        return outcomes;
+    }
+
+    public long getWorstLiability() {
+        return worstLiability;
+    }
+
+    public int[] getWorstOutcome() {
+        return worstOutcome == null ? null : worstOutcome.clone();
+    }
+
+    // Average payout over all equally likely outcomes
+    public double getExpectedPayout() {
+        return outcomes == 0 ? 0 : totalPayout / outcomes;
+    }
+
+    // Outcomes with the most winning bets, most first
+    public List<Outcome> getTopOutcomes() {
+        List<Outcome> sorted = new ArrayList<>(top);
+        sorted.sort(Comparator.comparingLong(Outcome::winningBets).reversed());
+        return sorted;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Exposure over ").append(outcomes).append(" outcomes for ")
+                .append(numberOfBets).append(" bets\n");
+        sb.append("Worst-case liability: ").append(worstLiability / 100).append(" zł ")
+                .append(worstLiability % 100).append(" gr for ").append(Arrays.toString(worstOutcome)).append("\n");
+        long expected = (long) getExpectedPayout();
+        sb.append("Expected payout: ").append(expected / 100).append(" zł ").append(expected % 100).append(" gr\n");
+        sb.append("Most winners:\n");
+        for (Outcome outcome : getTopOutcomes()) {
+            sb.append(outcome).append("\n");
+        }
+        return sb.toString();
+    }
+}
@@ -0,0 +1,114 @@
+package analysis;
+
+import java.util.Arrays;
+
+/**
+ * Outcome of a Monte Carlo run of the Headquarters finances.
+ * Keeps one slot per run for each metric and summarizes their distributions.
+ * All amounts are in grosz.
+ */
+public class FinanceReport {
+    private final int draws; // Draws per run
+    private final long[] funds; // Headquarters funds after the last draw
+    private final long[] subsidies; // Total subsidies received from the state budget
+    private final long[] taxes; // Total taxes paid (sales and large wins)
+    private final long[] finalJackpots; // Jackpot carried over after the last draw
+    private final long[] maxJackpots; // Largest jackpot reached
+    private final int[] jackpotsWon; // Draws with at least one six
+
+    protected FinanceReport(int runs, int draws) {
+        this.draws = draws;
+        this.funds = new long[runs];
+        this.subsidies = new long[runs];
+        this.taxes = new long[runs];
+        this.finalJackpots = new long[runs];
+        this.maxJackpots = new long[runs];
+        this.jackpotsWon = new int[runs];
+    }
+
+    // Each run writes only its own slot, so no synchronization is needed
+    protected void record(int run, long funds, long subsidies, long taxes, long finalJackpot, long maxJackpot, int jackpotsWon) {
+        this.funds[run] = funds;
+        this.subsidies[run] = subsidies;
+        this.taxes[run] = taxes;
+        this.finalJackpots[run] = finalJackpot;
+        this.maxJackpots[run] = maxJackpot;
+        this.jackpotsWon[run] = jackpotsWon;
+    }
+
+    public int getRuns() {
+        return funds.length;
+    }
+
+    public long[] getFunds() {
+        return funds.clone();
+    }
+
+    public long[] getSubsidies() {
+        return subsidies.clone();
+    }
+
+    public long[] getTaxes() {
+        return taxes.clone();
+    }
+
+    public long[] getFinalJackpots() {
+        return finalJackpots.clone();
+    }
+
+    public long[] getMaxJackpots() {
+        return maxJackpots.clone();
+    }
+
+    // Share of runs in which Headquarters needed state budget money at least once
+    public double subsidyProbability() {
+        int needed = 0;
+        for (long subsidy : subsidies) {
+            if (subsidy > 0) needed++;
+        }
+        return (double) needed / subsidies.length;
+    }
+
+    // Average number of draws with a first prize winner per run
+    public double averageJackpotsWon() {
+        long sum = 0;
+        for (int won : jackpotsWon) {
+            sum += won;
+        }
+        return (double) sum / jackpotsWon.length;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Monte Carlo of Headquarters finances: ");
+        sb.append(getRuns()).append(" runs of ").append(draws).append(" draws\n");
+        sb.append(String.format("%-14s : %14s %14s %14s %14s %14s\n", "zł", "mean", "p5", "median", "p95", "max"));
+        appendRow(sb, "Funds", funds);
+        appendRow(sb, "Subsidies", subsidies);
+        appendRow(sb, "Taxes", taxes);
+        appendRow(sb, "Final jackpot", finalJackpots);
+        appendRow(sb, "Max jackpot", maxJackpots);
+        sb.append(String.format("Runs needing subsidies: %.2f%%\n", subsidyProbability() * 100));
+        sb.append(String.format("Jackpots won per run: %.2f\n", averageJackpotsWon()));
+        return sb.toString();
+    }
+
+    // One line of the summary table, amounts in whole złoty
+    private static void appendRow(StringBuilder sb, String name, long[] values) {
+        long[] sorted = values.clone();
+        Arrays.sort(sorted);
+        double mean = Arrays.stream(sorted).asDoubleStream().sum() / sorted.length;
+
+        sb.append(String.format("%-14s : %14d %14d %14d %14d %14d\n", name,
+                (long) mean / 100,
+                percentile(sorted, 0.05) / 100,
+                percentile(sorted, 0.5) / 100,
+                percentile(sorted, 0.95) / 100,
+                sorted[sorted.length - 1] / 100));
+    }
+
+    private static long percentile(long[] sorted, double p) {
+        int index = (int) Math.min(sorted.length - 1, Math.floor(p * sorted.length));
+        return sorted[index];
+    }
+}
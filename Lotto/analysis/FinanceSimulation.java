@@ -0,0 +1,132 @@
+package analysis;
+
+import institutions.Headquarters;
+import institutions.PrizeRules;
+import institutions.RandomStreams;
+import exceptions.IllegalArgument;
+
+import java.util.SplittableRandom;
+import java.util.stream.IntStream;
+
+/**
+ * Monte Carlo model of the long-run Headquarters finances.
+ * Each run is an independent sequence of draws on a lightweight sales model: the number of bets
+ * per draw varies around a mean and grows with the jackpot, and winners per tier are sampled
+ * from the exact 6-of-49 hit probabilities. Prize pools, the jackpot rollover, the large-win tax
+ * and subsidies follow the same PrizeRules and order of payments as Headquarters and CollectionOffice.
+ * Winners are assumed to redeem right after the draw and each winning bet to be a separate ticket.
+ * Runs share no state and write to their own slots, so they scale with the number of cores.
+ */
+public class FinanceSimulation {
+    private static final double ALL_DRAWS = 13_983_816; // C(49, 6)
+    private static final double[] TIER_PROBABILITY = { // index = prize tier - 1
+            1 / ALL_DRAWS, 258 / ALL_DRAWS, 13_545 / ALL_DRAWS, 246_820 / ALL_DRAWS};
+
+    private final int draws; // Draws per run
+    private final long meanBets; // Average bets sold per draw at the guaranteed jackpot
+    private final double volatility; // Relative standard deviation of sales
+    private final double jackpotElasticity; // Relative sales growth per doubling of the jackpot over the guarantee
+    private final long initialFunds; // Headquarters funds at the start of every run
+
+    public FinanceSimulation(int draws, long meanBets, double volatility, double jackpotElasticity, long initialFunds) {
+        if (draws < 1) {
+            throw new IllegalArgument("Simulation: number of draws must be > 0");
+        }
+        if (meanBets < 0 || volatility < 0 || jackpotElasticity < 0) {
+            throw new IllegalArgument("Simulation: sales parameters must be >= 0");
+        }
+
+        this.draws = draws;
+        this.meanBets = meanBets;
+        this.volatility = volatility;
+        this.jackpotElasticity = jackpotElasticity;
+        this.initialFunds = initialFunds;
+    }
+
+    // Runs the given number of independent draw sequences in parallel; the seed makes the result reproducible
+    public FinanceReport run(int runs, long seed) {
+        if (runs < 1) {
+            throw new IllegalArgument("Simulation: number of runs must be > 0");
+        }
+
+        FinanceReport report = new FinanceReport(runs, draws);
+        IntStream.range(0, runs).parallel().forEach(run -> simulate(run, new SplittableRandom(seed ^ RandomStreams.mix(run + 0x9E3779B97F4A7C15L)), report));
+        return report;
+    }
+
+    // One run; results go to the run's own slots in the report
+    private void simulate(int run, SplittableRandom random, FinanceReport report) {
+        long funds = initialFunds;
+        long jackpot = PrizeRules.GUARANTEED_JACKPOT;
+        long subsidies = 0;
+        long taxes = 0;
+        long maxJackpot = jackpot;
+        int jackpotsWon = 0;
+        int[] winners = new int[TIER_PROBABILITY.length];
+
+        for (int draw = 1; draw <= draws; draw++) {
+            long bets = sales(jackpot, random);
+
+            // Sales: income and 20% tax on every bet
+            long salesTax = bets * Headquarters.getBetPrice() / 5;
+            funds += bets * Headquarters.getBetPrice() - salesTax;
+            taxes += salesTax;
+
+            for (int tier = 0; tier < winners.length; tier++) {
+                winners[tier] = sampleBinomial(bets, TIER_PROBABILITY[tier], random);
+            }
+
+            boolean firstDraw = draw == 1;
+            long[] pools = PrizeRules.rewards(bets, winners, jackpot, firstDraw);
+            jackpot = PrizeRules.nextJackpot(bets, winners, jackpot, firstDraw);
+            maxJackpot = Math.max(maxJackpot, jackpot);
+            if (winners[0] > 0) jackpotsWon++;
+
+            // Payouts: large-win tax first, then the net amount, topped up by a subsidy when funds run out
+            long paid = 0;
+            long winTax = 0;
+            for (int tier = 0; tier < winners.length; tier++) {
+                if (winners[tier] > 0) {
+                    long amount = pools[tier] / winners[tier];
+                    paid += amount * winners[tier];
+                    winTax += PrizeRules.largeWinTax(amount) * winners[tier];
+                }
+            }
+            funds -= winTax;
+            taxes += winTax;
+            long net = paid - winTax;
+            if (funds < net) {
+                subsidies += net - funds;
+                funds = net;
+            }
+            funds -= net;
+        }
+
+        report.record(run, funds, subsidies, taxes, jackpot, maxJackpot, jackpotsWon);
+    }
+
+    // Bets sold in a draw: noisy around the mean, growing with the jackpot
+    private long sales(long jackpot, SplittableRandom random) {
+        double boost = 1 + jackpotElasticity * Math.log((double) jackpot / PrizeRules.GUARANTEED_JACKPOT) / Math.log(2);
+        double bets = meanBets * boost * (1 + volatility * random.nextGaussian());
+        return Math.max(0, Math.round(bets));
+    }
+
+    // Poisson inversion for small means, normal approximation for large ones
+    private static int sampleBinomial(long n, double p, SplittableRandom random) {
+        double mean = n * p;
+        if (mean < 30) {
+            double limit = Math.exp(-mean);
+            double product = random.nextDouble();
+            int k = 0;
+            while (product > limit) {
+                product *= random.nextDouble();
+                k++;
+            }
+            return k;
+        }
+
+        double sample = mean + Math.sqrt(mean * (1 - p)) * random.nextGaussian();
+        return (int) Math.max(0, Math.min(n, Math.round(sample)));
+    }
+}
@@ -0,0 +1,126 @@
+package checks;
+
+import institutions.CollectionOffice;
+import institutions.DrawSummary;
+import institutions.Headquarters;
+import institutions.RandomStreams;
+import player.Minimalist;
+import player.Player;
+import ticket.Ticket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.Map;
+import java.util.SplittableRandom;
+import java.util.concurrent.ConcurrentHashMap;
+
+/**
+ * Checks that the prize pools of all draws balance against the winnings paid out when tickets
+ * are redeemed while draws run.
+ * Worker threads keep buying random tickets and redeeming them, often before their last draw,
+ * while the main thread conducts the draws. At the end every ticket left is redeemed and the
+ * payouts settled; no tier may pay more than its pool, and the prizes won in all draws (amount
+ * per winner times winners) must equal the winnings Headquarters paid, tax included.
+ *   [offices players draws threads seed] - exits with status 1 if the books do not balance
+ * Meant to run once per JVM, like the simulation.
+ */
+public class PayoutCheck {
+    private static final Map<Integer, Player> owners = new ConcurrentHashMap<>(); // Holder by ticket number
+    private static volatile boolean drawing = true;
+
+    public static void main(String[] args) throws InterruptedException {
+        int offices = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        int draws = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        long seed = args.length > 4 ? Long.parseLong(args[4]) : RandomStreams.getSeed();
+        RandomStreams.setSeed(seed);
+
+        Headquarters headquarters = Headquarters.getHeadquarters();
+        for (int office = 1; office <= offices; office++) {
+            new CollectionOffice(office);
+        }
+
+        // Each worker owns its players and the tickets they hold
+        List<List<Ticket>> held = new ArrayList<>();
+        List<Thread> workers = new ArrayList<>();
+        for (int w = 0; w < threads; w++) {
+            List<Player> own = new ArrayList<>();
+            for (int i = w; i < players; i += threads) {
+                own.add(new Minimalist("Check", "Player" + i, i, 1_000_000_000_00L, i % offices + 1));
+            }
+            List<Ticket> tickets = new ArrayList<>();
+            held.add(tickets);
+            SplittableRandom random = RandomStreams.stream(RandomStreams.Domain.SIMULATION, w + 1);
+            workers.add(new Thread(() -> trade(own, tickets, offices, random), "payout-check-" + w));
+        }
+        for (Thread worker : workers) {
+            worker.start();
+        }
+
+        for (int draw = 1; draw <= draws; draw++) {
+            Thread.sleep(5);
+            headquarters.lottery();
+        }
+        drawing = false;
+        for (Thread worker : workers) {
+            worker.join();
+        }
+
+        // Whatever is still held is redeemed now, with no draw running
+        long redeemed = 0;
+        for (List<Ticket> tickets : held) {
+            for (Ticket ticket : tickets) {
+                owners.remove(ticket.getNumber()).redeemTicket(ticket);
+            }
+            redeemed += tickets.size();
+        }
+        headquarters.settlePayouts();
+
+        long prizes = 0;
+        boolean withinPools = true;
+        for (int draw = 1; draw <= headquarters.getLotteriesCount(); draw++) {
+            DrawSummary summary = headquarters.summary(draw);
+            for (int tier = 0; tier < summary.numberOfTiers(); tier++) {
+                long won = summary.getPrizeAmount(tier) * summary.getWinners(tier);
+                if (won > summary.getPrizePool(tier)) {
+                    System.out.println("Draw " + draw + ", tier " + (tier + 1) + ": " + won + " won from a pool of " + summary.getPrizePool(tier));
+                    withinPools = false;
+                }
+                prizes += won;
+            }
+        }
+        long paid = headquarters.getPaidWinnings();
+        headquarters.shutdown();
+
+        System.out.println("Seed " + seed + ": " + headquarters.getLastTicketNumber() + " tickets, "
+                + redeemed + " redeemed at the end, " + headquarters.getLotteriesCount() + " draws");
+        System.out.println("Prizes won: " + prizes + " gr, winnings paid: " + paid + " gr");
+        if (!withinPools || prizes != paid) {
+            System.out.println("FAILED: the prize pools do not balance against the winnings paid");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    // Buys tickets for the players and redeems random ones until the draws are over
+    private static void trade(List<Player> players, List<Ticket> tickets, int offices, SplittableRandom random) {
+        Headquarters headquarters = Headquarters.getHeadquarters();
+        while (drawing) {
+            Player player = players.get(random.nextInt(players.size()));
+            CollectionOffice office = headquarters.getOffice(random.nextInt(offices) + 1);
+            Ticket ticket = player.buyTicket(office, random.nextInt(8) + 1, random.nextInt(10) + 1);
+            if (ticket != null) {
+                owners.put(ticket.getNumber(), player);
+                tickets.add(ticket);
+            }
+
+            if (!tickets.isEmpty() && random.nextInt(3) == 0) {
+                Ticket redeemed = tickets.remove(random.nextInt(tickets.size()));
+                player = owners.remove(redeemed.getNumber());
+                player.redeemTicket(redeemed);
+            }
+            Thread.yield();
+        }
+    }
+}
@@ -0,0 +1,133 @@
+package checks;
+
+import institutions.CollectionOffice;
+import institutions.Headquarters;
+import institutions.RandomStreams;
+import institutions.TicketSales;
+import player.Minimalist;
+import player.Player;
+import ticket.Ticket;
+
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.CompletionException;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Checks that ticket sales orders go into the draw they were placed before.
+ * Client threads keep ordering tickets through small sales queues, and redeeming some of the
+ * tickets they got, while the main thread conducts the draws. An order accepted before a draw
+ * started must be sold into that draw at the latest, whatever the queues held at the time; an
+ * order that is not accepted must come back as a failed future, never as an exception.
+ *   [offices players draws threads queue seed] - exits with status 1 if a check fails
+ * Meant to run once per JVM, like the simulation.
+ */
+public class SalesCheck {
+    private static volatile int drawsStarted; // Draws the main thread has started conducting
+    private static volatile boolean drawing = true;
+    private static final AtomicInteger failures = new AtomicInteger();
+
+    public static void main(String[] args) throws InterruptedException {
+        int offices = args.length > 0 ? Integer.parseInt(args[0]) : 4;
+        int players = args.length > 1 ? Integer.parseInt(args[1]) : 400;
+        int draws = args.length > 2 ? Integer.parseInt(args[2]) : 40;
+        int threads = args.length > 3 ? Integer.parseInt(args[3]) : 8;
+        int queue = args.length > 4 ? Integer.parseInt(args[4]) : 32;
+        long seed = args.length > 5 ? Long.parseLong(args[5]) : RandomStreams.getSeed();
+        RandomStreams.setSeed(seed);
+
+        Headquarters headquarters = Headquarters.getHeadquarters();
+        for (int office = 1; office <= offices; office++) {
+            new CollectionOffice(office);
+        }
+        TicketSales sales = new TicketSales(queue);
+
+        AtomicInteger sold = new AtomicInteger();
+        AtomicInteger rejected = new AtomicInteger();
+        List<Thread> clients = new ArrayList<>();
+        for (int c = 0; c < threads; c++) {
+            List<Player> own = new ArrayList<>();
+            for (int i = c; i < players; i += threads) {
+                own.add(new Minimalist("Check", "Player" + i, i, 1_000_000_000_00L, i % offices + 1));
+            }
+            SplittableRandom random = RandomStreams.stream(RandomStreams.Domain.SIMULATION, c + 1);
+            clients.add(new Thread(() -> order(sales, own, offices, random, sold, rejected), "sales-check-" + c));
+        }
+        for (Thread client : clients) {
+            client.start();
+        }
+
+        for (int draw = 1; draw <= draws; draw++) {
+            Thread.sleep(5);
+            drawsStarted = draw;
+            headquarters.lottery();
+        }
+        drawing = false;
+        for (Thread client : clients) {
+            client.join();
+        }
+        sales.close();
+        headquarters.shutdown();
+
+        System.out.println("Seed " + seed + ": " + sold + " tickets sold, " + rejected + " orders rejected, "
+                + headquarters.getLotteriesCount() + " draws");
+        if (failures.get() > 0) {
+            System.out.println("FAILED: " + failures + " checks");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    // Orders tickets for the players and redeems some of them until the draws are over
+    private static void order(TicketSales sales, List<Player> players, int offices, SplittableRandom random,
+                              AtomicInteger sold, AtomicInteger rejected) {
+        List<Player> owners = new ArrayList<>();
+        List<Ticket> tickets = new ArrayList<>();
+        while (drawing) {
+            Player player = players.get(random.nextInt(players.size()));
+            int office = random.nextInt(offices) + 1;
+            CompletableFuture<Ticket> future;
+            try {
+                future = sales.buyTicket(player, office, random.nextInt(8) + 1, random.nextInt(10) + 1);
+            } catch (RuntimeException e) {
+                check(false, "order threw " + e);
+                continue;
+            }
+            int latestDraw = drawsStarted + 1; // Every draw started from now on waits for the order
+
+            future.whenComplete((ticket, e) -> {
+                if (e != null) {
+                    Throwable cause = e instanceof CompletionException ? e.getCause() : e;
+                    check(cause instanceof RejectedExecutionException, "order failed with " + cause);
+                    rejected.incrementAndGet();
+                } else if (ticket != null) {
+                    check(ticket.getFirstDraw() <= latestDraw, "ticket " + ticket.getNumber()
+                            + " ordered before draw " + latestDraw + " sold into draw " + ticket.getFirstDraw());
+                    sold.incrementAndGet();
+                }
+            });
+
+            // Redeems a ticket now and then, taking the player's lock while draws run
+            if (random.nextInt(4) == 0 && future.isDone() && !future.isCompletedExceptionally() && future.join() != null) {
+                owners.add(player);
+                tickets.add(future.join());
+            }
+            if (!tickets.isEmpty() && random.nextInt(3) == 0) {
+                int i = random.nextInt(tickets.size());
+                owners.remove(i).redeemTicket(tickets.remove(i));
+            }
+            Thread.yield();
+        }
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            if (failures.getAndIncrement() < 20) {
+                System.out.println(failure);
+            }
+        }
+    }
+}
@@ -0,0 +1,187 @@
+package checks;
+
+import exceptions.IllegalArgument;
+import institutions.CollectionOffice;
+import institutions.Lottery;
+import institutions.RandomStreams;
+import ticket.Bet;
+import ticket.Form;
+import ticket.Ticket;
+import ticket.TicketCodec;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Checks the binary ticket codec and measures its throughput.
+ * Round trip: random tickets with every number of bets and draws, some bets invalid, go through
+ * batches and come back with the same identifier, office, draws and bets. Buffers of every size
+ * up to a few tickets must never overflow, and a ticket with a wrong check digit must be rejected.
+ * Throughput: encodes and decodes the given number of tickets in 1 MB batches.
+ *   [tickets seed] - exits with status 1 if a check fails
+ * Meant to run once per JVM, like the simulation.
+ */
+public class TicketCodecCheck {
+    private static final int OFFICES = 10;
+    private static int failures;
+
+    public static void main(String[] args) {
+        int tickets = args.length > 0 ? Integer.parseInt(args[0]) : 5_000_000;
+        long seed = args.length > 1 ? Long.parseLong(args[1]) : RandomStreams.getSeed();
+        RandomStreams.setSeed(seed);
+        SplittableRandom random = RandomStreams.stream(RandomStreams.Domain.SIMULATION, 0);
+        for (int office = 1; office <= OFFICES; office++) {
+            new CollectionOffice(office);
+        }
+
+        List<Ticket> sample = new ArrayList<>();
+        for (int i = 0; i < 100_000; i++) {
+            int bets = i % TicketCodec.MAX_BETS + 1; // every number of bets
+            int draws = i / TicketCodec.MAX_BETS % TicketCodec.MAX_DRAWS + 1; // and of draws
+            sample.add(randomTicket(random, bets, draws));
+        }
+
+        roundTrip(sample);
+        smallBuffers(sample);
+        corruptCheckDigit(sample.get(0));
+        throughput(sample, tickets);
+
+        System.out.println("Seed " + seed + ": " + sample.size() + " tickets round-tripped");
+        if (failures > 0) {
+            System.out.println("FAILED: " + failures + " checks");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    // Ticket with the given numbers of bets and draws at a random office, number and first draw;
+    // every other ticket also has an invalid bet, which the codec must leave out like Form does
+    private static Ticket randomTicket(SplittableRandom random, int bets, int draws) {
+        boolean withInvalid = random.nextBoolean();
+        int[][] numbers = new int[bets + (withInvalid ? 1 : 0)][];
+        for (int i = 0; i < bets; i++) {
+            numbers[i] = Lottery.generateNumbers(random);
+        }
+        if (withInvalid) {
+            int[] invalid = Lottery.generateNumbers(random);
+            invalid[0] = invalid[1];
+            numbers[bets] = invalid;
+        }
+
+        int number = random.nextInt(1, Integer.MAX_VALUE);
+        int office = random.nextInt(OFFICES) + 1;
+        return new Ticket(office, number, random.nextInt(1, 1_000_000), new Form(numbers, draws));
+    }
+
+    private static void roundTrip(List<Ticket> tickets) {
+        ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+        int from = 0;
+        while (from < tickets.size()) {
+            buffer.clear();
+            int to = TicketCodec.writeTickets(buffer, tickets, from);
+            buffer.flip();
+            List<Ticket> decoded = TicketCodec.readTickets(buffer);
+
+            check(decoded.size() == to - from, "batch of " + (to - from) + " read back as " + decoded.size());
+            check(!buffer.hasRemaining(), "batch leaves " + buffer.remaining() + " bytes unread");
+            for (int i = 0; i < decoded.size(); i++) {
+                compare(tickets.get(from + i), decoded.get(i));
+            }
+            from = to;
+        }
+    }
+
+    private static void compare(Ticket expected, Ticket actual) {
+        String ticket = "ticket " + expected.getNumber() + ": ";
+        check(expected.getId().equals(actual.getId()), ticket + "identifier " + actual.getId());
+        check(expected.getNumber() == actual.getNumber(), ticket + "number " + actual.getNumber());
+        check(expected.getOffice() == actual.getOffice(), ticket + "office " + actual.getOffice());
+        check(expected.getDrawNumbers().equals(actual.getDrawNumbers()), ticket + "draws " + actual.getDrawNumbers());
+        check(expected.getPrice() == actual.getPrice(), ticket + "price " + actual.getPrice());
+
+        List<Bet> bets = expected.getCorrectBets();
+        check(bets.size() == actual.numberOfBets(), ticket + actual.numberOfBets() + " bets");
+        for (int i = 0; i < Math.min(bets.size(), actual.numberOfBets()); i++) {
+            int[] numbers = actual.getCorrectBets().get(i).getNumbers();
+            check(Arrays.equals(bets.get(i).getNumbers(), numbers), ticket + "bet " + i + " " + Arrays.toString(numbers));
+        }
+    }
+
+    // Every buffer size up to a few tickets: whatever is written must not overflow and must read back
+    private static void smallBuffers(List<Ticket> tickets) {
+        List<Ticket> few = tickets.subList(0, 4);
+        for (int capacity = 0; capacity <= 4 * TicketCodec.MAX_TICKET_SIZE; capacity++) {
+            ByteBuffer buffer = ByteBuffer.allocate(capacity);
+            int written;
+            try {
+                written = TicketCodec.writeTickets(buffer, few, 0);
+            } catch (RuntimeException e) {
+                check(false, "buffer of " + capacity + " bytes: " + e);
+                continue;
+            }
+
+            buffer.flip();
+            if (capacity < Integer.BYTES) {
+                check(written == 0 && buffer.limit() == 0, "buffer of " + capacity + " bytes written to");
+                continue;
+            }
+            List<Ticket> decoded = TicketCodec.readTickets(buffer);
+            check(decoded.size() == written, "buffer of " + capacity + " bytes: " + decoded.size() + " of " + written + " tickets read");
+            for (int i = 0; i < Math.min(written, decoded.size()); i++) {
+                compare(few.get(i), decoded.get(i));
+            }
+        }
+    }
+
+    private static void corruptCheckDigit(Ticket ticket) {
+        ByteBuffer buffer = ByteBuffer.allocate(TicketCodec.MAX_TICKET_SIZE);
+        TicketCodec.writeTicket(buffer, ticket);
+        buffer.put(TicketCodec.ID_SIZE - 1, (byte) (buffer.get(TicketCodec.ID_SIZE - 1) + 1));
+        buffer.flip();
+        try {
+            TicketCodec.readTicket(buffer);
+            check(false, "ticket with a wrong check digit accepted");
+        } catch (IllegalArgument e) {
+            // expected
+        }
+    }
+
+    // Encodes and decodes the tickets over and over in 1 MB batches
+    private static void throughput(List<Ticket> tickets, int total) {
+        ByteBuffer buffer = ByteBuffer.allocateDirect(1 << 20);
+        long encodeNanos = 0;
+        long decodeNanos = 0;
+        long bytes = 0;
+        int done = 0;
+        int from = 0;
+
+        while (done < total) {
+            buffer.clear();
+            long start = System.nanoTime();
+            int to = TicketCodec.writeTickets(buffer, tickets, from);
+            long written = System.nanoTime();
+            buffer.flip();
+            int read = TicketCodec.readTickets(buffer).size();
+            decodeNanos += System.nanoTime() - written;
+            encodeNanos += written - start;
+
+            bytes += buffer.limit();
+            done += read;
+            from = to == tickets.size() ? 0 : to;
+        }
+
+        System.out.printf("Encoded %d tickets (%d MB): %.2f M tickets/s encoding, %.2f M tickets/s decoding%n",
+                done, bytes >> 20, done * 1e3 / encodeNanos, done * 1e3 / decodeNanos);
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            if (failures++ < 20) {
+                System.out.println(failure);
+            }
+        }
+    }
+}
@@ -0,0 +1,116 @@
+package institutions;
+
+import java.util.Arrays;
+
+/**
+ * Per-draw table of the distinct bet combinations taking part in a draw.
+ * Every combination is interned once, as its bit mask, with the list of tickets holding it
+ * (one entry per copy of the bet, so a ticket with the same bet twice is listed twice).
+ * The draw scores each distinct combination once and fans the tier out to its owners,
+ * instead of re-scoring every copy bought by players who repeat their favourite numbers.
+ */
+public class BetTable {
+    private static final int INITIAL_CAPACITY = 1024;
+
+    private long[] slots; // Open addressing table of masks, 0 marks an empty slot
+    private int[] slotIndex; // Index of the combination stored in the slot
+    private long[] masks; // Distinct combinations in insertion order
+    private int[][] owners; // Ticket numbers holding the combination, one per copy
+    private int[] counts; // Number of copies of the combination
+    private int distinct; // Number of distinct combinations
+    private long occurrences; // Number of bets added
+
+    public BetTable() {
+        this(INITIAL_CAPACITY);
+    }
+
+    public BetTable(int expectedDistinct) {
+        int capacity = Integer.highestOneBit(Math.max(expectedDistinct, 8) * 2 - 1) << 1;
+        this.slots = new long[capacity];
+        this.slotIndex = new int[capacity];
+        this.masks = new long[capacity / 2];
+        this.owners = new int[capacity / 2][];
+        this.counts = new int[capacity / 2];
+    }
+
+    // Adds a copy of the bet (as a mask, see Bet.toMask) held by the ticket; returns the combination index
+    public int add(long mask, int ticketNumber) {
+        if (mask == 0) {
+            throw new IllegalArgumentException("BetTable: empty bet.");
+        }
+
+        int i = indexOf(mask);
+        int[] list = owners[i];
+        if (counts[i] == list.length) {
+            owners[i] = list = Arrays.copyOf(list, list.length * 2);
+        }
+        list[counts[i]++] = ticketNumber;
+        occurrences++;
+        return i;
+    }
+
+    // Index of the combination, interning it if it is new
+    private int indexOf(long mask) {
+        int slot = hash(mask) & (slots.length - 1);
+        while (slots[slot] != 0) {
+            if (slots[slot] == mask) {
+                return slotIndex[slot];
+            }
+            slot = (slot + 1) & (slots.length - 1);
+        }
+
+        if (distinct == masks.length) {
+            grow();
+            return indexOf(mask);
+        }
+        slots[slot] = mask;
+        slotIndex[slot] = distinct;
+        masks[distinct] = mask;
+        owners[distinct] = new int[1];
+        return distinct++;
+    }
+
+    // Doubles the table, keeping it at most half full
+    private void grow() {
+        masks = Arrays.copyOf(masks, masks.length * 2);
+        owners = Arrays.copyOf(owners, owners.length * 2);
+        counts = Arrays.copyOf(counts, counts.length * 2);
+        slots = new long[slots.length * 2];
+        slotIndex = new int[slotIndex.length * 2];
+        for (int i = 0; i < distinct; i++) {
+            int slot = hash(masks[i]) & (slots.length - 1);
+            while (slots[slot] != 0) {
+                slot = (slot + 1) & (slots.length - 1);
+            }
+            slots[slot] = masks[i];
+            slotIndex[slot] = i;
+        }
+    }
+
+    private static int hash(long mask) {
+        long h = mask * 0x9E3779B97F4A7C15L;
+        return (int) (h ^ (h >>> 32));
+    }
+
+    // Number of distinct combinations
+    public int distinct() {
+        return distinct;
+    }
+
+    // Number of bets added, counting every copy
+    public long occurrences() {
+        return occurrences;
+    }
+
+    public long getMask(int i) {
+        return masks[i];
+    }
+
+    public int getCount(int i) {
+        return counts[i];
+    }
+
+    public int getOwner(int i, int copy) {
+        return owners[i][copy];
+    }
+}
@@ -5,13 +5,22 @@ import ticket.*;
 import exceptions.IllegalArgument;
 
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.ConcurrentLinkedQueue;
+import java.util.concurrent.locks.Lock;
 
 // Lottery office: sells tickets and communicates with the central system
 public class CollectionOffice {
     Headquarters headquarters = Headquarters.getHeadquarters(); // Reference to the central system
     private final int number; // Office number
-    private final Map<Integer, Ticket> activeTickets = new HashMap<>(); // Active tickets
-    private final Map<Integer, Ticket> inactiveTickets = new HashMap<>(); // Inactive tickets
+    private final TicketSet activeTickets = new TicketSet(); // Numbers of tickets that can still win; guards both sets
+    private final TicketSet inactiveTickets = new TicketSet(); // Numbers of redeemed or expired tickets
+    private final Map<Integer, Queue<Ticket>> ticketsByLastDraw = new ConcurrentHashMap<>(); // Expiry index of active tickets
+    private final Map<Integer, DrawBetIndex> betsByDraw = new ConcurrentHashMap<>(); // Number index of bets per upcoming draw
+    private int sweptUpTo; // Draws whose expired tickets have been retired
+    private final IssuedTicketFilter issuedFilter = new IssuedTicketFilter(); // Bloom filter of issued IDs
+    private final BitSet redeemedTickets = new BitSet(); // Numbers of already redeemed tickets
+    private final PayoutLedger payouts = new PayoutLedger(headquarters, 64); // Winnings waiting for settlement
 
     // Constructor: registers the office in the central system
     public CollectionOffice(int number) {
@@ -29,45 +38,88 @@ public class CollectionOffice {
 
     // Checks a ticket for a player: validates, deactivates, pays winnings if any
     public void sprawdźKupon(Ticket ticket, Player player) {
-        if (!inactiveTickets.containsKey(ticket.getNumber()) &&
-                !activeTickets.containsKey(ticket.getNumber())) {
+        // Constant-time rejection of unknown IDs before any map lookup
+        if (!issuedFilter.mightContain(ticket.getId().fingerprint())) {
             throw new IllegalArgument("Ticket bought in another office: " + ticket.printId() + ".");
         }
+        if (isRedeemed(ticket.getNumber())) {
+            throw new IllegalArgument("Ticket already redeemed: " + ticket.printId() + ".");
+        }
 
-        // Retrieve the real ticket from active or inactive maps
-        Ticket real = activeTickets.getOrDefault(ticket.getNumber(),
-                inactiveTickets.get(ticket.getNumber()));
+        // Retrieve the real ticket from the registry if this office issued it
+        Ticket real = issued(ticket.getNumber()) ? headquarters.getTicketRegistry().getTicket(ticket.getNumber()) : null;
+        if (real == null && isRedeemed(ticket.getNumber())) { // released by a redemption that won the race
+            throw new IllegalArgument("Ticket already redeemed: " + ticket.printId() + ".");
+        }
+        if (real == null) {
+            throw new IllegalArgument("Ticket bought in another office: " + ticket.printId() + ".");
+        }
         if (!real.equals(ticket)) {
             throw new IllegalArgument("Forged ticket!");
         }
 
-        // Deactivate active ticket
-        if (activeTickets.containsKey(ticket.getNumber())) {
-            deactivateTicket(ticket);
+        // No draw runs meanwhile, so each of the ticket's draws is either paid below or withdrawn from
+        Lock redemption = headquarters.redemptionLock();
+        redemption.lock();
+        try {
+            // A ticket is paid out only once, even if two redemptions race
+            if (!markRedeemed(ticket.getNumber())) {
+                throw new IllegalArgument("Ticket already redeemed: " + ticket.printId() + ".");
+            }
+
+            // Deactivate active ticket
+            if (isActive(ticket.getNumber())) {
+                deactivateTicket(ticket);
+            }
+
+            // Calculate winnings and pay player
+            payWinnings(ticket, player);
+
+            // Nothing reads the ticket or its draws for it any more
+            headquarters.getTicketRegistry().release(ticket.getNumber());
+            headquarters.ticketRedeemed(real.getFirstDraw());
+        } finally {
+            redemption.unlock();
         }
+    }
 
-        // Calculate winnings and pay player
-        long winnings = checkWinnings(ticket);
-        if (winnings > 0) {
-            headquarters.withdrawReward(winnings, player);
+    // Applies the winnings paid since the last settlement to Headquarters
+    protected void settlePayouts() {
+        payouts.settle();
+    }
+
+    private boolean isRedeemed(int ticketNumber) {
+        synchronized (redeemedTickets) {
+            return redeemedTickets.get(ticketNumber);
         }
     }
 
-    // Calculates total winnings for a ticket
-    private long checkWinnings(Ticket ticket) {
+    // Marks a ticket as redeemed; false if it already was
+    private boolean markRedeemed(int ticketNumber) {
+        synchronized (redeemedTickets) {
+            if (redeemedTickets.get(ticketNumber)) {
+                return false;
+            }
+            redeemedTickets.set(ticketNumber);
+        }
+        headquarters.getTicketRegistry().setStatus(ticketNumber, TicketStatus.REDEEMED);
+        return true;
+    }
+
+    // Calculates total winnings for a ticket and pays them to the player through the ledger
+    private void payWinnings(Ticket ticket, Player player) {
         long wonAmount = 0;
         long highestAmountWon = 0;
         List<Integer> draws = ticket.getDrawNumbers();
 
         int i = draws.get(0);
         while (i <= draws.get(draws.size() - 1) && i <= headquarters.getLotteriesCount()) {
-            List<List<Integer>> winnings = headquarters.giveWinningTickets(i);
-            long[] prizeAmounts = headquarters.prizeAmounts(i);
+            DrawSummary draw = headquarters.summary(i);
 
-            for (int j = 0; j < winnings.size(); j++) {
-                if (winnings.get(j).contains(ticket.getNumber())) {
-                    int frequency = Collections.frequency(winnings.get(j), ticket.getNumber());
-                    long amount = prizeAmounts[j] * frequency;
+            for (int j = 0; j < draw.numberOfTiers(); j++) {
+                int frequency = draw.timesWon(j, ticket.getNumber());
+                if (frequency > 0) {
+                    long amount = draw.getPrizeAmount(j) * frequency;
                     highestAmountWon = Math.max(amount, highestAmountWon);
                     wonAmount += amount;
                 }
@@ -76,13 +128,10 @@ public class CollectionOffice {
         }
 
         // Deduct 10% tax if the largest winning exceeds a threshold
-        if (highestAmountWon >= 228000) {
-            long tax = (long) (highestAmountWon * 0.1);
-            wonAmount -= tax;
-            headquarters.payTax(tax);
+        long tax = PrizeRules.largeWinTax(highestAmountWon);
+        if (wonAmount > 0) {
+            payouts.pay(player, wonAmount - tax, tax);
         }
-
-        return wonAmount;
     }
 
     // Issues a ticket based on a player's blank
@@ -92,38 +141,129 @@ public class CollectionOffice {
             return null;
         }
 
-        Ticket ticket = new Ticket(this.number, headquarters.getLastTicketNumber() + 1, form);
-        newTicketHandling(ticket);
+        SalesEpoch epoch = headquarters.enterSales();
+        try {
+            Ticket ticket = new Ticket(this.number, headquarters.nextTicketNumber(), epoch.getDraw(), form);
+            newTicketHandling(ticket);
 
-        return ticket;
+            return ticket;
+        } finally {
+            epoch.leave();
+        }
     }
 
     // Issues a ticket with a random blank for the player
     public Ticket giveTicket(int numberOfBets, int numberOfDraws, Player player) {
-        Form form = new Form(numberOfBets, numberOfDraws);
-
-        if (!canAfford(player, numberOfBets, form.howManyDraws())) {
+        // Checked before a ticket number is reserved, so a bad request does not use one up
+        if (numberOfBets < 1 || numberOfDraws < 0) {
+            throw new IllegalArgument("Form: number of bets must be > 0 and number of draws >= 0 (0 meaning 1)");
+        }
+        if (!canAfford(player, numberOfBets, Math.max(numberOfDraws, 1))) {
             return null;
         }
 
-        Ticket ticket = new Ticket(this.number, headquarters.getLastTicketNumber() + 1, form);
-        newTicketHandling(ticket);
+        // The blank is drawn from the stream of the ticket number it is sold as
+        SalesEpoch epoch = headquarters.enterSales();
+        try {
+            int ticketNumber = headquarters.nextTicketNumber();
+            Form form = new Form(numberOfBets, numberOfDraws, RandomStreams.stream(RandomStreams.Domain.FORM, ticketNumber));
+            Ticket ticket = new Ticket(this.number, ticketNumber, epoch.getDraw(), form);
+            newTicketHandling(ticket);
 
-        return ticket;
+            return ticket;
+        } finally {
+            epoch.leave();
+        }
     }
 
     // Adds a new ticket to active tickets and updates the central system
     private void newTicketHandling(Ticket ticket) {
-        activeTickets.put(ticket.getNumber(), ticket);
-        headquarters.incrementTicketCounter();
+        headquarters.getTicketRegistry().register(ticket);
+        headquarters.ticketIssued(ticket.getFirstDraw());
+        synchronized (activeTickets) {
+            activeTickets.add(ticket.getNumber());
+        }
+        ticketsByLastDraw.computeIfAbsent(ticket.getLastDraw(), k -> new ConcurrentLinkedQueue<>()).add(ticket);
+        for (int draw = ticket.getFirstDraw(); draw <= ticket.getLastDraw(); draw++) {
+            DrawBetIndex index = betsByDraw.computeIfAbsent(draw, k -> new DrawBetIndex());
+            for (int i = 0; i < ticket.numberOfBets(); i++) {
+                index.add(ticket.getBetMask(i), ticket.getNumber());
+            }
+        }
+        for (int i = 0; i < ticket.numberOfBets(); i++) {
+            headquarters.getPopularity().add(ticket.getBetMask(i), ticket.getLastDraw() - ticket.getFirstDraw() + 1);
+        }
+        issuedFilter.add(ticket.getId().fingerprint());
         headquarters.collectIncome(ticket.getPrice());
         headquarters.payTax(ticket.getTaxAmount());
     }
 
-    // Deactivates a ticket after draw or payout
+    // Deactivates a ticket after draw or payout; both sets change under one lock
     protected void deactivateTicket(Ticket ticket) {
-        activeTickets.remove(ticket.getNumber());
-        inactiveTickets.put(ticket.getNumber(), ticket);
+        synchronized (activeTickets) {
+            inactiveTickets.add(ticket.getNumber());
+            activeTickets.remove(ticket.getNumber());
+        }
+
+        // A ticket redeemed early no longer takes part in its draws not cut off yet; redemptions
+        // hold the redemption lock, so those are all the draws not conducted yet
+        SalesEpoch epoch = headquarters.enterSales();
+        try {
+            for (int draw = Math.max(ticket.getFirstDraw(), epoch.getDraw()); draw <= ticket.getLastDraw(); draw++) {
+                DrawBetIndex index = betsByDraw.get(draw);
+                if (index != null) {
+                    index.withdraw(ticket.getNumber(), ticket.numberOfBets());
+                }
+            }
+        } finally {
+            epoch.leave();
+        }
+    }
+
+    protected boolean isActive(int ticketNumber) {
+        synchronized (activeTickets) {
+            return activeTickets.contains(ticketNumber);
+        }
+    }
+
+    // Whether this office issued the ticket, active or not
+    private boolean issued(int ticketNumber) {
+        synchronized (activeTickets) {
+            return activeTickets.contains(ticketNumber) || inactiveTickets.contains(ticketNumber);
+        }
+    }
+
+    // Hands the bet index of a draw over to the draw after its cutoff; the office no longer keeps it
+    protected DrawBetIndex takeBetIndex(int drawNumber) {
+        return betsByDraw.remove(drawNumber);
+    }
+
+    /*
+     * Moves the tickets whose last draw is not after the given one out of the active set,
+     * a whole last-draw bucket at a time; sales go on meanwhile, as they only add to later buckets
+     */
+    protected synchronized void retireExpired(int drawNumber) {
+        for (int draw = sweptUpTo + 1; draw <= drawNumber; draw++) {
+            Queue<Ticket> expired = ticketsByLastDraw.remove(draw);
+            if (expired == null) {
+                continue;
+            }
+
+            for (Ticket ticket : expired) {
+                if (isActive(ticket.getNumber())) { // not redeemed early
+                    deactivateTicket(ticket);
+                    headquarters.getTicketRegistry().expire(ticket.getNumber());
+                }
+            }
+        }
+        sweptUpTo = Math.max(sweptUpTo, drawNumber);
+    }
+
+    // Number of tickets that can still win
+    public int activeTicketCount() {
+        synchronized (activeTickets) {
+            return activeTickets.cardinality();
+        }
     }
 
     // Checks if a player has enough money to buy the ticket
@@ -133,9 +273,16 @@ public class CollectionOffice {
 
     // Returns only active tickets participating in the given draw
     public List<Ticket> getLotteryTickets(int drawNumber) {
+        int[] active;
+        synchronized (activeTickets) {
+            active = activeTickets.toArray();
+        }
+
         List<Ticket> kupony = new ArrayList<>();
-        for (Ticket ticket : activeTickets.values()) {
-            if (ticket.getDrawNumbers().contains(drawNumber)) {
+        for (int ticketNumber : active) {
+            Ticket ticket = headquarters.getTicketRegistry().getTicket(ticketNumber);
+            if (ticket != null // null if redeemed meanwhile
+                    && ticket.getFirstDraw() <= drawNumber && drawNumber <= ticket.getLastDraw()) {
                 kupony.add(ticket);
             }
         }
@@ -0,0 +1,92 @@
+package institutions;
+
+import java.util.Arrays;
+import java.util.BitSet;
+
+/**
+ * Inverted index of the bets sold for one draw at one office, built as tickets are sold.
+ * Distinct combinations are interned in a BetTable, and every number of the game has a
+ * posting list of the combinations containing it. A draw merges only the posting lists
+ * of the winning numbers, counting hits per combination, so it never touches bets that hit
+ * nothing, and most bets hit too few numbers to win anyway.
+ */
+public class DrawBetIndex {
+    private final BetTable bets = new BetTable(64); // Distinct combinations and their owners
+    private final int[][] postings = new int[Long.SIZE][]; // Combination indexes per number (bit of the mask)
+    private final int[] postingSizes = new int[Long.SIZE];
+    private long numberOfBets; // Bets of active tickets taking part in the draw
+    private final BitSet withdrawn = new BitSet(); // Tickets redeemed before the draw
+
+    public DrawBetIndex() {
+        for (int number = 0; number < postings.length; number++) {
+            postings[number] = new int[8];
+        }
+    }
+
+    // Adds a bet (as a mask, see Bet.toMask) of a ticket sold for the draw
+    public synchronized void add(long mask, int ticketNumber) {
+        int before = bets.distinct();
+        int combination = bets.add(mask, ticketNumber);
+        numberOfBets++;
+
+        if (combination == before) { // New combination, post it under each of its numbers
+            for (long rest = mask; rest != 0; rest &= rest - 1) {
+                int number = Long.numberOfTrailingZeros(rest);
+                if (postingSizes[number] == postings[number].length) {
+                    postings[number] = Arrays.copyOf(postings[number], postingSizes[number] * 2);
+                }
+                postings[number][postingSizes[number]++] = combination;
+            }
+        }
+    }
+
+    // Takes a ticket redeemed before the cutoff out of the draw
+    public synchronized void withdraw(int ticketNumber, int bets) {
+        if (!withdrawn.get(ticketNumber)) {
+            withdrawn.set(ticketNumber);
+            numberOfBets -= bets;
+        }
+    }
+
+    public synchronized long numberOfBets() {
+        return numberOfBets;
+    }
+
+    public synchronized int distinctBets() {
+        return bets.distinct();
+    }
+
+    /* Merges the posting lists of the winning numbers and adds the owners of every combination
+     * with enough hits for a prize to the draw's winners, skipping withdrawn tickets
+     */
+    protected synchronized void collectWinners(int[] winningNumbers, Game game, Lottery lottery) {
+        int minimumHits = game.minimumHits();
+        byte[] hits = new byte[bets.distinct()];
+        int[] candidates = new int[16];
+        int numberOfCandidates = 0;
+
+        for (int number : winningNumbers) {
+            int[] posting = postings[number];
+            for (int i = 0; i < postingSizes[number]; i++) {
+                int combination = posting[i];
+                if (++hits[combination] == minimumHits) { // Counted once, when it becomes a winner
+                    if (numberOfCandidates == candidates.length) {
+                        candidates = Arrays.copyOf(candidates, numberOfCandidates * 2);
+                    }
+                    candidates[numberOfCandidates++] = combination;
+                }
+            }
+        }
+
+        for (int c = 0; c < numberOfCandidates; c++) {
+            int combination = candidates[c];
+            int tier = game.tierOf(hits[combination]);
+            for (int copy = 0; copy < bets.getCount(combination); copy++) {
+                int ticketNumber = bets.getOwner(combination, copy);
+                if (!withdrawn.get(ticketNumber)) {
+                    lottery.addWinner(tier, ticketNumber);
+                }
+            }
+        }
+    }
+}
@@ -0,0 +1,196 @@
+package institutions;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Files;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.*;
+
+/**
+ * Summaries of all conducted draws. A draw stays in memory while some ticket not redeemed yet
+ * starts at or before it, since that ticket may still be redeemed against it; once every ticket
+ * sold up to the draw has been redeemed, the draw is appended to a file and read back through a
+ * small LRU cache. Memory therefore follows the tickets still outstanding, not the number of draws;
+ * tickets that are never redeemed keep their draws in memory.
+ */
+public class DrawHistory implements Closeable {
+    private final int cacheSize; // Spilled draws cached in memory
+    private DrawSummary[] hot = new DrawSummary[16]; // Ring of the draws not spilled, oldest at hotHead
+    private int hotHead;
+    private int hotCount;
+    private final Map<Integer, DrawSummary> cache; // Spilled draws by number, least recently used first
+    private int[] outstanding = new int[64]; // Tickets not redeemed yet by first draw, from outstandingBase
+    private int outstandingBase = 1;
+    private int oldestOutstanding = 1; // No ticket still outstanding starts before this draw
+    private long[] offsets = new long[64]; // File offset of spilled draw n at index n - 1, plus the end
+    private int spilled; // Number of draws written to the file
+    private Path file; // Created with the first spilled draw
+    private FileChannel channel;
+    private boolean closed;
+
+    public DrawHistory(int cacheSize) {
+        if (cacheSize < 0) {
+            throw new IllegalArgumentException("DrawHistory: the cache size must be >= 0.");
+        }
+
+        this.cacheSize = cacheSize;
+        this.cache = new LinkedHashMap<>(16, 0.75f, true) {
+            @Override
+            protected boolean removeEldestEntry(Map.Entry<Integer, DrawSummary> eldest) {
+                return size() > DrawHistory.this.cacheSize;
+            }
+        };
+    }
+
+    // Adds the next draw, spilling the draws no outstanding ticket can be redeemed against
+    public synchronized void add(DrawSummary draw) {
+        if (draw.getNumber() != size() + 1) {
+            throw new IllegalArgumentException("DrawHistory: expected draw " + (size() + 1) + ", got " + draw.getNumber() + ".");
+        }
+
+        if (hotCount == hot.length) {
+            DrawSummary[] grown = new DrawSummary[hot.length * 2];
+            for (int i = 0; i < hotCount; i++) {
+                grown[i] = hot[(hotHead + i) % hot.length];
+            }
+            hot = grown;
+            hotHead = 0;
+        }
+        hot[(hotHead + hotCount++) % hot.length] = draw;
+        spillRedeemed();
+    }
+
+    // A ticket starting with the draw was sold; called before that draw is cut off
+    public synchronized void ticketIssued(int firstDraw) {
+        if (firstDraw - outstandingBase >= outstanding.length) {
+            // Counts before the oldest outstanding draw are all 0, so the window moves up to it
+            int shift = oldestOutstanding - outstandingBase;
+            int needed = firstDraw - oldestOutstanding + 1;
+            int[] counts = new int[Math.max(outstanding.length, 2 * needed)];
+            System.arraycopy(outstanding, shift, counts, 0, outstanding.length - shift);
+            outstanding = counts;
+            outstandingBase = oldestOutstanding;
+        }
+        outstanding[firstDraw - outstandingBase]++;
+    }
+
+    // A ticket starting with the draw was redeemed and reads no more draws
+    public synchronized void ticketRedeemed(int firstDraw) {
+        outstanding[firstDraw - outstandingBase]--;
+        spillRedeemed();
+    }
+
+    // Spills the draws older than the first draw of every ticket still outstanding
+    private void spillRedeemed() {
+        // Draws already conducted take no more sales, so their counts only go down
+        while (oldestOutstanding <= size() && outstandingFrom(oldestOutstanding) == 0) {
+            oldestOutstanding++;
+        }
+        while (hotCount > 0 && spilled + 1 < oldestOutstanding) {
+            DrawSummary draw = hot[hotHead];
+            hot[hotHead] = null;
+            hotHead = (hotHead + 1) % hot.length;
+            hotCount--;
+            spill(draw);
+        }
+    }
+
+    private int outstandingFrom(int draw) {
+        int i = draw - outstandingBase;
+        return i < outstanding.length ? outstanding[i] : 0;
+    }
+
+    public synchronized int size() {
+        return spilled + hotCount;
+    }
+
+    // Draws kept in memory because outstanding tickets may still be redeemed against them
+    public synchronized int hotSize() {
+        return hotCount;
+    }
+
+    // Returns the summary of any conducted draw (numbered from 1)
+    public synchronized DrawSummary get(int number) {
+        if (number < 1 || number > size()) {
+            throw new IndexOutOfBoundsException("No draw number " + number + ".");
+        }
+        if (number > spilled) {
+            return hot[(hotHead + number - spilled - 1) % hot.length];
+        }
+
+        DrawSummary draw = cache.get(number);
+        if (draw == null) {
+            draw = read(number);
+            if (cacheSize > 0) {
+                cache.put(number, draw);
+            }
+        }
+        return draw;
+    }
+
+    // Closes and deletes the draw file; spilled draws cannot be read or written afterwards
+    @Override
+    public synchronized void close() throws IOException {
+        closed = true;
+        cache.clear();
+        if (channel != null) {
+            try {
+                channel.close();
+            } finally {
+                Files.deleteIfExists(file);
+            }
+        }
+    }
+
+    private void spill(DrawSummary draw) {
+        if (closed) {
+            throw new IllegalStateException("DrawHistory: closed, cannot spill draw " + draw.getNumber() + ".");
+        }
+        try {
+            if (channel == null) {
+                file = Files.createTempFile("lotto-draws", ".bin");
+                file.toFile().deleteOnExit();
+                channel = FileChannel.open(file, StandardOpenOption.READ, StandardOpenOption.WRITE);
+            }
+
+            ByteBuffer buffer = ByteBuffer.allocate(draw.encodedSize());
+            draw.writeTo(buffer);
+            buffer.flip();
+            long position = offsets[spilled];
+            while (buffer.hasRemaining()) {
+                position += channel.write(buffer, position);
+            }
+
+            if (spilled + 2 > offsets.length) {
+                offsets = Arrays.copyOf(offsets, offsets.length * 2);
+            }
+            offsets[++spilled] = position;
+        } catch (IOException e) {
+            throw new UncheckedIOException("DrawHistory: cannot spill draw " + draw.getNumber(), e);
+        }
+    }
+
+    private DrawSummary read(int number) {
+        if (closed) {
+            throw new IllegalStateException("DrawHistory: closed, cannot read draw " + number + ".");
+        }
+        try {
+            long position = offsets[number - 1];
+            ByteBuffer buffer = ByteBuffer.allocate((int) (offsets[number] - position));
+            while (buffer.hasRemaining()) {
+                int read = channel.read(buffer, position + buffer.position());
+                if (read < 0) {
+                    throw new IOException("Unexpected end of the draw file.");
+                }
+            }
+            buffer.flip();
+            return DrawSummary.readFrom(buffer);
+        } catch (IOException e) {
+            throw new UncheckedIOException("DrawHistory: cannot read draw " + number, e);
+        }
+    }
+}
@@ -0,0 +1,12 @@
+package institutions;
+
+// Notified by Headquarters around each draw: before its sales are cut off, and right after it has
+// been conducted and its prize pools saved
+public interface DrawListener {
+    // Called on the drawing thread before the cutoff of the draw, while no draw lock is held; the
+    // draw waits for it, so e.g. orders already queued for the draw can still be sold into it
+    default void salesClosing(int draw) {
+    }
+
+    void drawCompleted(DrawSummary draw);
+}
@@ -0,0 +1,177 @@
+package institutions;
+
+import java.nio.ByteBuffer;
+import java.util.AbstractList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Immutable results of a finished draw: winning numbers, bets taken part, prize pools
+ * and a compact winner index (sorted ticket numbers per tier, one entry per winning bet).
+ * This is all a draw keeps once it has been conducted, so it stays small and can be
+ * spilled to disk. Arrays are indexed by prize tier - 1; amounts are in grosz.
+ */
+public final class DrawSummary {
+    private final int number; // Draw number
+    private final int[] winningNumbers; // Sorted winning numbers
+    private final long numberOfBets; // Bets checked in the draw
+    private final long[] prizePools; // Prize pool per tier
+    private final long[] prizeAmounts; // Amount per winning bet per tier
+    private final int[][] winnerIndex; // Sorted numbers of winning tickets per tier
+
+    public DrawSummary(int number, int[] winningNumbers, long numberOfBets, long[] prizePools, int[][] winnerIndex) {
+        this.number = number;
+        this.winningNumbers = winningNumbers.clone();
+        Arrays.sort(this.winningNumbers);
+        this.numberOfBets = numberOfBets;
+        this.prizePools = prizePools.clone();
+        this.winnerIndex = new int[winnerIndex.length][];
+        for (int tier = 0; tier < winnerIndex.length; tier++) {
+            this.winnerIndex[tier] = winnerIndex[tier].clone();
+            Arrays.sort(this.winnerIndex[tier]);
+        }
+
+        // The pool is split between the winning bets of a tier
+        this.prizeAmounts = this.prizePools.clone();
+        for (int tier = 0; tier < prizeAmounts.length; tier++) {
+            if (this.winnerIndex[tier].length > 0) {
+                prizeAmounts[tier] /= this.winnerIndex[tier].length;
+            }
+        }
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public int[] getWinningNumbers() {
+        return winningNumbers.clone();
+    }
+
+    public int getWinningNumber(int i) {
+        return winningNumbers[i];
+    }
+
+    public int numberOfWinningNumbers() {
+        return winningNumbers.length;
+    }
+
+    public long getNumberOfBets() {
+        return numberOfBets;
+    }
+
+    public int getWinners(int tier) {
+        return winnerIndex[tier].length;
+    }
+
+    public long getPrizePool(int tier) {
+        return prizePools[tier];
+    }
+
+    public long[] getPrizePools() {
+        return prizePools.clone();
+    }
+
+    public long getPrizeAmount(int tier) {
+        return prizeAmounts[tier];
+    }
+
+    public long[] getPrizeAmounts() {
+        return prizeAmounts.clone();
+    }
+
+    public int numberOfTiers() {
+        return winnerIndex.length;
+    }
+
+    // How many bets of the ticket won in the tier, by binary search in the winner index
+    public int timesWon(int tier, int ticketNumber) {
+        int[] winners = winnerIndex[tier];
+        int first = Arrays.binarySearch(winners, ticketNumber);
+        if (first < 0) {
+            return 0;
+        }
+
+        while (first > 0 && winners[first - 1] == ticketNumber) first--;
+        int last = first;
+        while (last + 1 < winners.length && winners[last + 1] == ticketNumber) last++;
+        return last - first + 1;
+    }
+
+    // Read-only view of the winning ticket numbers of a tier, without copying
+    public List<Integer> getWinningTickets(int tier) {
+        int[] winners = winnerIndex[tier];
+        return new AbstractList<>() {
+            @Override
+            public Integer get(int index) {
+                return winners[index];
+            }
+
+            @Override
+            public int size() {
+                return winners.length;
+            }
+        };
+    }
+
+    // Size of the binary encoding in bytes
+    public int encodedSize() {
+        int size = Integer.BYTES * 3 + Integer.BYTES * winningNumbers.length + Long.BYTES
+                + Long.BYTES * prizePools.length;
+        for (int[] winners : winnerIndex) {
+            size += Integer.BYTES + Integer.BYTES * winners.length;
+        }
+        return size;
+    }
+
+    // Binary encoding: number, winning numbers, bets, pools, then the winner index tier by tier
+    public void writeTo(ByteBuffer buffer) {
+        buffer.putInt(number);
+        buffer.putInt(winningNumbers.length);
+        for (int winningNumber : winningNumbers) {
+            buffer.putInt(winningNumber);
+        }
+        buffer.putLong(numberOfBets);
+        buffer.putInt(prizePools.length);
+        for (long pool : prizePools) {
+            buffer.putLong(pool);
+        }
+        for (int[] winners : winnerIndex) {
+            buffer.putInt(winners.length);
+            for (int ticket : winners) {
+                buffer.putInt(ticket);
+            }
+        }
+    }
+
+    public static DrawSummary readFrom(ByteBuffer buffer) {
+        int number = buffer.getInt();
+        int[] winningNumbers = new int[buffer.getInt()];
+        for (int i = 0; i < winningNumbers.length; i++) {
+            winningNumbers[i] = buffer.getInt();
+        }
+        long numberOfBets = buffer.getLong();
+        long[] prizePools = new long[buffer.getInt()];
+        for (int i = 0; i < prizePools.length; i++) {
+            prizePools[i] = buffer.getLong();
+        }
+        int[][] winnerIndex = new int[prizePools.length][];
+        for (int tier = 0; tier < winnerIndex.length; tier++) {
+            winnerIndex[tier] = new int[buffer.getInt()];
+            for (int i = 0; i < winnerIndex[tier].length; i++) {
+                winnerIndex[tier][i] = buffer.getInt();
+            }
+        }
+        return new DrawSummary(number, winningNumbers, numberOfBets, prizePools, winnerIndex);
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder("Draw number ").append(number).append("\nWinning numbers:");
+        for (int number : winningNumbers) {
+            sb.append(String.format("%3d", number));
+        }
+        sb.append(" \n");
+        return sb.toString();
+    }
+}
@@ -0,0 +1,77 @@
+package institutions;
+
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.Executors;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.ScheduledExecutorService;
+import java.util.concurrent.TimeUnit;
+
+/**
+ * Background sweeper retiring tickets after their last draw.
+ * After every draw it schedules, on its own daemon thread, a pass over all offices that moves
+ * the just-expired tickets out of their active sets in bulk, so draws and sales never wait for it
+ * and the active sets only hold tickets that can still win. Once closed, draws are swept on the
+ * drawing thread instead.
+ */
+public class ExpirySweeper implements DrawListener, AutoCloseable {
+    private final ScheduledExecutorService executor;
+    private final long delayMillis; // Delay between the end of a draw and its sweep
+
+    public ExpirySweeper(long delayMillis) {
+        if (delayMillis < 0) {
+            throw new IllegalArgumentException("Sweeper: delay must be >= 0");
+        }
+
+        this.delayMillis = delayMillis;
+        this.executor = Executors.newSingleThreadScheduledExecutor(task -> {
+            Thread thread = new Thread(task, "ticket-expiry-sweeper");
+            thread.setDaemon(true);
+            return thread;
+        });
+    }
+
+    @Override
+    public void drawCompleted(DrawSummary draw) {
+        if (executor.isShutdown()) {
+            sweep(draw.getNumber());
+            return;
+        }
+        try {
+            executor.schedule(() -> sweep(draw.getNumber()), delayMillis, TimeUnit.MILLISECONDS);
+        } catch (RejectedExecutionException e) { // closed meanwhile
+            sweep(draw.getNumber());
+        }
+    }
+
+    // Retires the tickets of all offices that expired with the given draw (or earlier)
+    public void sweep(int drawNumber) {
+        Headquarters headquarters = Headquarters.getHeadquarters();
+        for (int office : headquarters.getOfficeNumber()) {
+            headquarters.getOffice(office).retireExpired(drawNumber);
+        }
+    }
+
+    // Waits until all sweeps scheduled so far have finished
+    public void awaitSweeps() throws InterruptedException {
+        if (executor.isShutdown()) {
+            executor.awaitTermination(Long.MAX_VALUE, TimeUnit.NANOSECONDS);
+            return;
+        }
+        try {
+            executor.submit(() -> { }).get();
+        } catch (ExecutionException e) {
+            throw new IllegalStateException(e);
+        }
+    }
+
+    // Runs the sweeps already scheduled and stops the thread; an interrupt is restored, not thrown
+    @Override
+    public void close() {
+        executor.shutdown();
+        try {
+            executor.awaitTermination(1, TimeUnit.MINUTES);
+        } catch (InterruptedException e) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
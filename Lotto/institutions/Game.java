@@ -0,0 +1,261 @@
+package institutions;
+
+import exceptions.IllegalArgument;
+
+import java.util.Arrays;
+import java.util.random.RandomGenerator;
+
+/**
+ * Definition of a k-of-n lottery game: how many numbers a bet picks, the range they come from,
+ * the hits each prize tier needs and how the prize pools are shared.
+ * A bet is evaluated as a bit mask (bit n set for number n): one long for ranges up to 63,
+ * arrays of words beyond that. Hits are a popcount of the AND with the winning mask and a
+ * table lookup gives the tier, so every game takes the same primitive path as 6-of-49.
+ * Tier index = prize tier - 1; the first tier takes the jackpot, the others are configured
+ * as a share of the pot, a fixed amount per winner or the remainder of the pot.
+ */
+public final class Game {
+    // How the pool of a lower tier is set
+    public enum Kind {
+        SHARE, // Share of the pot
+        FIXED, // Fixed amount per winning bet
+        REMAINDER // What is left of the pot, but at least a minimum per winning bet
+    }
+
+    // Pool of a tier below the first
+    public record Prize(Kind kind, double share, long perWinner) {
+        public static Prize share(double share) {
+            return new Prize(Kind.SHARE, share, 0);
+        }
+
+        public static Prize fixed(long perWinner) {
+            return new Prize(Kind.FIXED, 0, perWinner);
+        }
+
+        public static Prize remainder(long minimumPerWinner) {
+            return new Prize(Kind.REMAINDER, 0, minimumPerWinner);
+        }
+    }
+
+    public static final Game LOTTO = new Game("Lotto 6/49", 6, 49, 0.51, 0.44, PrizeRules.GUARANTEED_JACKPOT,
+            new int[]{6, 5, 4, 3}, Prize.share(0.08), Prize.remainder(3600), Prize.fixed(2400));
+    public static final Game MINI_LOTTO = new Game("Mini Lotto 5/42", 5, 42, 0.51, 0.40, 200_000_00L,
+            new int[]{5, 4, 3}, Prize.share(0.15), Prize.remainder(1000));
+    public static final Game LOTTO_6_59 = new Game("Lotto 6/59", 6, 59, 0.51, 0.44, 5_000_000_00L,
+            new int[]{6, 5, 4, 3, 2}, Prize.share(0.08), Prize.share(0.10), Prize.remainder(2500), Prize.fixed(300));
+
+    private final String name;
+    private final int picks; // Numbers in a bet and in a draw
+    private final int range; // Numbers from 1 to range
+    private final double potShare; // Part of the bet pool contribution going to prizes
+    private final double jackpotShare; // Part of the pot added to the first tier
+    private final long guaranteedJackpot; // Minimum first prize pool when won
+    private final int[] tierHits; // Hits needed per tier, descending
+    private final Prize[] prizes; // Pools of the tiers below the first
+    private final byte[] tierOfHits; // Tier by number of hits, -1 for no prize
+
+    public Game(String name, int picks, int range, double potShare, double jackpotShare, long guaranteedJackpot,
+                int[] tierHits, Prize... prizes) {
+        if (picks < 1 || range < picks || range > 255) {
+            throw new IllegalArgument("Game: a bet picks at least one of at most 255 numbers.");
+        }
+        if (tierHits.length == 0 || tierHits.length != prizes.length + 1 || tierHits[0] != picks) {
+            throw new IllegalArgument("Game: the first tier needs all numbers and every other tier a prize.");
+        }
+        for (int i = 1; i < tierHits.length; i++) {
+            if (tierHits[i] >= tierHits[i - 1] || tierHits[i] < 1) {
+                throw new IllegalArgument("Game: tier hits must be descending and positive.");
+            }
+        }
+        if (Arrays.stream(prizes).filter(prize -> prize.kind() == Kind.REMAINDER).count() > 1) {
+            throw new IllegalArgument("Game: at most one tier takes the remainder of the pot.");
+        }
+
+        this.name = name;
+        this.picks = picks;
+        this.range = range;
+        this.potShare = potShare;
+        this.jackpotShare = jackpotShare;
+        this.guaranteedJackpot = guaranteedJackpot;
+        this.tierHits = tierHits.clone();
+        this.prizes = prizes.clone();
+        this.tierOfHits = new byte[picks + 1];
+        Arrays.fill(tierOfHits, (byte) -1);
+        for (int tier = 0; tier < tierHits.length; tier++) {
+            tierOfHits[tierHits[tier]] = (byte) tier;
+        }
+    }
+
+    public String getName() {
+        return name;
+    }
+
+    public int getPicks() {
+        return picks;
+    }
+
+    public int getRange() {
+        return range;
+    }
+
+    public long getGuaranteedJackpot() {
+        return guaranteedJackpot;
+    }
+
+    public int numberOfTiers() {
+        return tierHits.length;
+    }
+
+    // Hits needed for the lowest prize
+    public int minimumHits() {
+        return tierHits[tierHits.length - 1];
+    }
+
+    public int hitsOfTier(int tier) {
+        return tierHits[tier];
+    }
+
+    // Prize tier of a bet with the given hits, -1 if it wins nothing
+    public int tierOf(int hits) {
+        return tierOfHits[hits];
+    }
+
+    // Whether bets fit a single long mask
+    public boolean isSingleWord() {
+        return range < Long.SIZE;
+    }
+
+    // Checks the bet picks the right count of distinct numbers from the range
+    public boolean isValidBet(int[] numbers) {
+        if (numbers == null || numbers.length != picks) {
+            return false;
+        }
+
+        long[] seen = new long[range / Long.SIZE + 1];
+        for (int number : numbers) {
+            if (number < 1 || number > range || (seen[number >>> 6] & 1L << number) != 0) {
+                return false;
+            }
+            seen[number >>> 6] |= 1L << number;
+        }
+        return true;
+    }
+
+    // Single-word mask of the numbers (bit n for number n); only for ranges up to 63
+    public long mask(int[] numbers) {
+        if (!isSingleWord()) {
+            throw new IllegalArgument("Game: " + name + " needs multi-word masks.");
+        }
+
+        long mask = 0;
+        for (int number : numbers) {
+            mask |= 1L << number;
+        }
+        return mask;
+    }
+
+    // Multi-word mask of the numbers, word i holding numbers 64 * i to 64 * i + 63
+    public long[] maskWords(int[] numbers) {
+        long[] words = new long[range / Long.SIZE + 1];
+        for (int number : numbers) {
+            words[number >>> 6] |= 1L << number;
+        }
+        return words;
+    }
+
+    public static int hits(long bet, long winning) {
+        return Long.bitCount(bet & winning);
+    }
+
+    public static int hits(long[] bet, long[] winning) {
+        int hits = 0;
+        for (int i = 0; i < bet.length; i++) {
+            hits += Long.bitCount(bet[i] & winning[i]);
+        }
+        return hits;
+    }
+
+    // Draws picks distinct numbers from the range with a partial Fisher-Yates shuffle of the given stream
+    public int[] drawNumbers(RandomGenerator random) {
+        int[] numbers = new int[range];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = i + 1;
+        }
+
+        int[] drawnNumbers = new int[picks];
+        for (int j = 0; j < drawnNumbers.length; j++) {
+            int k = j + random.nextInt(numbers.length - j);
+            int swap = numbers[k];
+            numbers[k] = numbers[j];
+            numbers[j] = swap;
+            drawnNumbers[j] = swap;
+        }
+
+        return drawnNumbers;
+    }
+
+    // Part of the bets sold that goes to prizes
+    private long pot(long numberOfBets) {
+        return (long) (PrizeRules.BET_POOL_CONTRIBUTION * numberOfBets * potShare);
+    }
+
+    // Share of the pot added to the first prize pool
+    private long firstPoolShare(long pot) {
+        return (long) (pot * jackpotShare);
+    }
+
+    /*
+     * Prize pools for a draw with the given number of bets and winners per tier, written into
+     * the given array; the jackpot is the amount carried over before this draw
+     */
+    public long[] rewards(long numberOfBets, int[] winners, long jackpot, boolean firstDraw, long[] rewards) {
+        long pot = pot(numberOfBets);
+        long firstPool = firstPoolShare(pot);
+
+        long remainder = pot - firstPool;
+        int remainderTier = -1;
+        for (int tier = 1; tier < tierHits.length; tier++) {
+            Prize prize = prizes[tier - 1];
+            switch (prize.kind()) {
+                case SHARE -> rewards[tier] = (long) (pot * prize.share());
+                case FIXED -> rewards[tier] = winners[tier] * prize.perWinner();
+                case REMAINDER -> remainderTier = tier;
+            }
+            if (prize.kind() != Kind.REMAINDER) {
+                remainder -= rewards[tier];
+            }
+        }
+
+        // Guaranteed minimum for the remainder tier
+        if (remainderTier > 0) {
+            rewards[remainderTier] = Math.max(remainder, winners[remainderTier] * prizes[remainderTier - 1].perWinner());
+        }
+
+        // Jackpot mechanism
+        if (firstDraw) {
+            rewards[0] = jackpot;
+        } else if (winners[0] == 0) {
+            rewards[0] = jackpot + firstPool;
+        } else {
+            // Guaranteed prize handling
+            rewards[0] = Math.max(firstPool + jackpot, guaranteedJackpot);
+        }
+
+        return rewards;
+    }
+
+    // Jackpot carried over to the next draw: grows while nobody hits all numbers, resets when someone does
+    public long nextJackpot(long numberOfBets, int[] winners, long jackpot, boolean firstDraw) {
+        if (firstDraw) {
+            return jackpot;
+        } else if (winners[0] == 0) {
+            return jackpot + firstPoolShare(pot(numberOfBets));
+        }
+        return guaranteedJackpot;
+    }
+
+    @Override
+    public String toString() {
+        return name;
+    }
+}
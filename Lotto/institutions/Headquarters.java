@@ -1,19 +1,34 @@
 package institutions;
 
-import player.Player;
+import exceptions.IllegalArgument;
 
+import java.io.IOException;
+import java.io.UncheckedIOException;
 import java.util.*;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.CopyOnWriteArrayList;
+import java.util.concurrent.atomic.AtomicInteger;
+import java.util.concurrent.locks.Lock;
+import java.util.concurrent.locks.ReentrantReadWriteLock;
 
 public class Headquarters {
     private long funds; // Headquarters funds in grosz
     private long jackpot; // jackpot amount in grosz
-    private final List<Lottery> lotteries = new ArrayList<>(); // list of conducted draws
-    private final Map<Integer, CollectionOffice> collectionOffices = new HashMap<>(); // map of branches by number
-    private static int lastTicketNumber; // last ticket number
+    private final DrawHistory lotteries = new DrawHistory(64); // summaries of conducted draws, on disk once no ticket needs them
+    private final Map<Integer, CollectionOffice> collectionOffices = new ConcurrentHashMap<>(); // map of branches by number
+    private final TicketRegistry ticketRegistry = new TicketRegistry(); // global index of issued tickets
+    private final List<DrawListener> drawListeners = new CopyOnWriteArrayList<>(); // notified after each draw
+    private final AtomicInteger lastTicketNumber = new AtomicInteger(); // last ticket number
+    private final ReentrantReadWriteLock drawLock = new ReentrantReadWriteLock(); // one draw at a time; redemptions share it, sales do not wait for it
+    private volatile SalesEpoch salesEpoch = new SalesEpoch(1); // sales going into the next draw
+    private volatile Game game = Game.LOTTO; // rules of the game being run
+    private long paidWinnings; // winnings settled so far, tax included
+    private final PopularitySketch popularity = new PopularitySketch(4, 1 << 16, 20); // how heavily numbers and combinations are played
+    private final ExpirySweeper expirySweeper = new ExpirySweeper(0); // retires expired tickets after each draw
 
     private Headquarters() {
         jackpot = 2_000_000_00; // initial jackpot
-        lastTicketNumber = 0;
+        drawListeners.add(expirySweeper);
     }
 
     // Static holder for a singleton instance
@@ -49,17 +64,128 @@ public class Headquarters {
     }
 
     // Conducts a draw, calculates winnings, and adds it to the draw list
-    public synchronized void lottery() {
-        Lottery lottery = new Lottery(lotteries.size() + 1);
-        lotteries.add(lottery);
-        lottery.savePrizeAmounts(CalcRewards(lottery));
+    public void lottery() {
+        conductDraw(null);
     }
 
     // Conducts a fake draw with preset numbers (for testing)
-    public synchronized void fakeLottery(int[] numbers) {
-        Lottery lottery = new Lottery(lotteries.size() + 1, numbers);
-        lotteries.add(lottery);
-        lottery.savePrizeAmounts(CalcRewards(lottery));
+    public void fakeLottery(int[] numbers) {
+        conductDraw(numbers);
+    }
+
+    /* Cuts sales off, then evaluates the draw on the tickets sold up to the cutoff
+     * while sales for the next draw continue in a fresh epoch
+     */
+    private void conductDraw(int[] numbers) {
+        // Before the draw lock: a listener may wait for sales that need a player whose redemption waits for the lock
+        for (DrawListener listener : drawListeners) {
+            listener.salesClosing(salesEpoch.getDraw());
+        }
+
+        drawLock.writeLock().lock();
+        try {
+            SalesEpoch epoch = cutOff();
+            settlePayouts();
+            Lottery lottery = numbers == null ? new Lottery(epoch.getDraw()) : new Lottery(epoch.getDraw(), numbers);
+            lottery.savePrizeAmounts(CalcRewards(lottery));
+            lotteries.add(lottery.summarize());
+            notifyDrawListeners(lotteries.size());
+        } finally {
+            drawLock.writeLock().unlock();
+        }
+    }
+
+    /* Held by offices while redeeming a ticket: it waits for a draw in progress, so every draw
+     * that has been cut off is also conducted, and the ticket is either paid for a draw or withdrawn from it
+     */
+    protected Lock redemptionLock() {
+        return drawLock.readLock();
+    }
+
+    // Opens the epoch of the next draw and closes the current one once the sales inside it are done
+    private SalesEpoch cutOff() {
+        SalesEpoch epoch = salesEpoch;
+        salesEpoch = new SalesEpoch(epoch.getDraw() + 1);
+        epoch.close();
+        return epoch;
+    }
+
+    // Enters the current sales epoch; the caller must leave it when done
+    protected SalesEpoch enterSales() {
+        while (true) {
+            SalesEpoch epoch = salesEpoch;
+            if (epoch.enter()) {
+                return epoch;
+            }
+        }
+    }
+
+    public Game getGame() {
+        return game;
+    }
+
+    // Switches the game; only before the first sale or draw, with the game's guaranteed jackpot
+    public synchronized void setGame(Game game) {
+        if (getLastTicketNumber() > 0 || getLotteriesCount() > 0) {
+            throw new IllegalArgument("Headquarters: the game can only be set before the first sale or draw.");
+        }
+        if (!game.isSingleWord()) {
+            throw new IllegalArgument("Headquarters: draws of " + game + " would need multi-word bet indexes.");
+        }
+
+        this.game = game;
+        this.jackpot = game.getGuaranteedJackpot();
+    }
+
+    // Plays of numbers and combinations sold so far, updated at every sale
+    public PopularitySketch getPopularity() {
+        return popularity;
+    }
+
+    // First draw of the tickets sold now
+    public int getSalesDraw() {
+        return salesEpoch.getDraw();
+    }
+
+    public void addDrawListener(DrawListener listener) {
+        drawListeners.add(listener);
+    }
+
+    public void removeDrawListener(DrawListener listener) {
+        drawListeners.remove(listener);
+    }
+
+    private void notifyDrawListeners(int lottery) {
+        if (drawListeners.isEmpty()) {
+            return;
+        }
+
+        DrawSummary summary = summary(lottery);
+        for (DrawListener listener : drawListeners) {
+            listener.drawCompleted(summary);
+        }
+    }
+
+    /* Ends the run: finishes the pending sweeps, stops the sweeper thread and deletes the file of
+     * spilled draws, which can no longer be read afterwards; draws kept in memory still can
+     */
+    public void shutdown() {
+        expirySweeper.close();
+        try {
+            lotteries.close();
+        } catch (IOException e) {
+            throw new UncheckedIOException("Headquarters: cannot close the draw history", e);
+        }
+    }
+
+    // Counts a ticket sold for the draw as outstanding, keeping the draws from it on in memory
+    protected void ticketIssued(int firstDraw) {
+        lotteries.ticketIssued(firstDraw);
+    }
+
+    // A redeemed ticket no longer needs its draws in memory
+    protected void ticketRedeemed(int firstDraw) {
+        lotteries.ticketRedeemed(firstDraw);
     }
 
     // Allows user to set the account balance
@@ -67,13 +193,13 @@ public class Headquarters {
         this.funds = amount;
     }
 
-    // Increments the last ticket counter
-    protected synchronized void incrementTicketCounter() {
-        lastTicketNumber++;
+    // Reserves the next ticket number; lock-free, so concurrent offices never share a number or wait for a draw
+    protected int nextTicketNumber() {
+        return lastTicketNumber.incrementAndGet();
     }
 
     public int getLastTicketNumber() {
-        return lastTicketNumber;
+        return lastTicketNumber.get();
     }
 
     // Adds a lottery office to the central system
@@ -83,38 +209,19 @@ public class Headquarters {
 
     // Calculates the prize pools according to rules; does not reserve funds yet
     public long[] CalcRewards(Lottery lottery) {
-        List<List<Integer>> tickets = lottery.giveWinningTickets();
-
-        // Sum of all bets participating in the draw
-        long pot = 240L * lottery.numberOfBets();
-        pot = (long) (pot * 0.51);
-
-        // Array for prize pools (index = prize tier - 1)
-        long[] rewards = new long[4];
-        long Ipot = (long) (pot * 0.44);
-
-        // Calculate prize amounts according to prizing rules
-        rewards[1] = (long) (pot * 0.08);
-        rewards[3] = tickets.get(3).size() * 2400L;
-        long tempIII = pot - Ipot - rewards[1] - rewards[3];
+        Game rules = lottery.getGame();
+        int[] winners = new int[rules.numberOfTiers()];
+        for (int i = 0; i < winners.length; i++) {
+            winners[i] = lottery.numberOfWinners(i);
+        }
 
-        // Guaranteed for 3rd tier
-        rewards[2] = Math.max(tempIII, tickets.get(2).size() * 3600L);
+        boolean firstDraw = lottery.getNumber() == 1;
+        synchronized (this) {
+            long[] rewards = rules.rewards(lottery.numberOfBets(), winners, jackpot, firstDraw, new long[winners.length]);
+            jackpot = rules.nextJackpot(lottery.numberOfBets(), winners, jackpot, firstDraw);
 
-        // Jackpot mechanism
-        if (lotteries.get(0) == lottery) {
-            rewards[0] = jackpot;
-        } else if (tickets.get(0).isEmpty()) {
-            jackpot += Ipot;
-            rewards[0] = jackpot;
-        } else {
-            // Guaranteed prize handling
-            long sumI = Ipot + jackpot;
-            rewards[0] = Math.max(sumI, 2_000_000_00L);
-            jackpot = 2_000_000_00L;
+            return rewards;
         }
-
-        return rewards;
     }
 
     // Allows setting bet price
@@ -127,70 +234,99 @@ public class Headquarters {
     }
 
     protected List<List<Integer>> giveWinningTickets(int lottery) {
-        return lotteries.get(lottery - 1).giveWinningTickets();
+        DrawSummary draw = lotteries.get(lottery);
+        List<List<Integer>> winning = new ArrayList<>();
+        for (int tier = 0; tier < draw.numberOfTiers(); tier++) {
+            winning.add(draw.getWinningTickets(tier));
+        }
+        return winning;
     }
 
-    protected void withdrawReward(long amount, Player player) {
-        if (funds < amount) {
-            receiveSubsidy(amount - funds);
+    /* Applies a batch of payouts already credited to players: pays the withheld tax once,
+     * then debits the prizes, asking the state for one subsidy if the funds do not cover them
+     */
+    protected synchronized void applyPayouts(long payouts, long tax) {
+        if (tax > 0) {
+            payTax(tax);
+        }
+        if (funds < payouts) {
+            receiveSubsidy(payouts - funds);
+        }
+        funds -= payouts;
+        paidWinnings += payouts + tax;
+    }
+
+    // Winnings settled so far, tax included; pending payouts are not included, see settlePayouts()
+    public synchronized long getPaidWinnings() {
+        return paidWinnings;
+    }
+
+    // Settles the pending payouts of all offices
+    public void settlePayouts() {
+        for (CollectionOffice collectionOffice : collectionOffices.values()) {
+            collectionOffice.settlePayouts();
         }
-        funds -= amount;
-        player.addFunds(amount);
     }
 
     public Set<Integer> getWinningNumbers(int lottery) {
-        return Collections.unmodifiableSet(lotteries.get(lottery - 1).getWinningNumbers());
+        Set<Integer> numbers = new TreeSet<>();
+        for (int number : lotteries.get(lottery).getWinningNumbers()) {
+            numbers.add(number);
+        }
+        return Collections.unmodifiableSet(numbers);
     }
 
     // Public information about the first prize pool
     public String getFirstPrizePool(int lottery) {
-        long amount = lotteries.get(lottery - 1).getPrizePools()[0];
+        long amount = lotteries.get(lottery).getPrizePool(0);
         return "Real first pot prize pool: " + amount / 100 + " zł " + amount % 100 + " gr\n";
     }
 
+    // Jackpot that will be carried into the next draw
+    public synchronized long getJackpot() {
+        return jackpot;
+    }
+
+    // Payouts still pending in office ledgers are not included, see settlePayouts()
     public long getFunds() {
         return funds;
     }
 
     // Returns the amount per winning ticket for each tier
     public long[] prizeAmounts(int lottery) {
-        long[] pot = lotteries.get(lottery - 1).getPrizePools();
-        long[] amounts = Arrays.copyOf(pot, pot.length);
-        List<List<Integer>> winning = giveWinningTickets(lottery);
-
-        for (int i = 0; i < winning.size(); i++) {
-            if (!winning.get(i).isEmpty()) {
-                amounts[i] = amounts[i] / winning.get(i).size();
-            }
-        }
-
-        return amounts;
+        return lotteries.get(lottery).getPrizeAmounts();
     }
 
-    public Lottery lottery(int numer) {
-        return lotteries.get(numer - 1);
+    // Immutable results of a conducted draw, for any draw number
+    public DrawSummary summary(int lottery) {
+        return lotteries.get(lottery);
     }
 
     public List<Integer> getOfficeNumber() {
         return List.copyOf(collectionOffices.keySet());
     }
 
+    // Resolves printed ticket identifiers for players and auditors
+    public TicketRegistry getTicketRegistry() {
+        return ticketRegistry;
+    }
+
     public CollectionOffice getOffice(int number) {
         return collectionOffices.get(number);
     }
 
     // Prints bets, pools, and amounts including guaranteed amounts
     public String displayResults(int lottery) {
-        StringBuilder sb = new StringBuilder(lotteries.get(lottery - 1).toString());
+        DrawSummary draw = lotteries.get(lottery);
+        StringBuilder sb = new StringBuilder(draw.toString());
         sb.append("------------------\n");
         sb.append("Total winning amounts: \n");
-        long[] amounts = prizeAmounts(lottery);
-        List<List<Integer>> numberOfBets = giveWinningTickets(lottery);
-        String[] degreeNames = {"First Prize", "Second Prize", "Third Prize", "Fourth Prize"};
+        String[] degreeNames = {"First Prize", "Second Prize", "Third Prize", "Fourth Prize", "Fifth Prize",
+                "Sixth Prize", "Seventh Prize", "Eighth Prize"};
 
-        for (int i = 0; i < amounts.length; i++) {
-            long prizeAmount = amounts[i];
-            if (!numberOfBets.get(i).isEmpty()) {
+        for (int i = 0; i < draw.numberOfTiers(); i++) {
+            long prizeAmount = draw.getPrizeAmount(i);
+            if (draw.getWinners(i) > 0) {
                 sb.append(String.format("%-12s : %5d zł %02d gr\n",
                         degreeNames[i],
                         prizeAmount / 100,
@@ -200,17 +336,16 @@ public class Headquarters {
         sb.append("------------------\n");
         sb.append("Number of winning bets: \n");
 
-        for (int i = 0; i < numberOfBets.size(); i++) {
-            sb.append(String.format("%-12s : %5d\n", degreeNames[i], numberOfBets.get(i).size()));
+        for (int i = 0; i < draw.numberOfTiers(); i++) {
+            sb.append(String.format("%-12s : %5d\n", degreeNames[i], draw.getWinners(i)));
         }
         sb.append("------------------\n");
-        long[] prizePools = lotteries.get(lottery - 1).getPrizePools();
         sb.append("Prize pools: \n");
-        for (int i = 0; i < prizePools.length; i++) {
+        for (int i = 0; i < draw.numberOfTiers(); i++) {
             sb.append(String.format("%-12s : %5d zł %02d gr\n",
                     degreeNames[i],
-                    prizePools[i] / 100,
-                    prizePools[i] % 100));
+                    draw.getPrizePool(i) / 100,
+                    draw.getPrizePool(i) % 100));
         }
         return sb.toString();
     }
@@ -0,0 +1,71 @@
+package institutions;
+
+import java.util.ArrayList;
+import java.util.List;
+
+/**
+ * Scalable Bloom filter of the ticket identifiers issued by one office.
+ * A negative answer is exact, so forged tickets and tickets from other offices
+ * are rejected without probing the ticket maps. Grows by adding larger segments.
+ */
+public class IssuedTicketFilter {
+    private static final int INITIAL_CAPACITY = 1 << 10; // Keys in the first segment
+    private static final int BITS_PER_KEY = 10; // About 1% false positives per segment
+    private static final int HASHES = 7; // Optimal for 10 bits per key
+
+    private final List<long[]> segments = new ArrayList<>(); // Bit arrays, oldest first
+    private int capacity; // Capacity of the newest segment
+    private int count; // Keys stored in the newest segment
+
+    public IssuedTicketFilter() {
+        this.capacity = INITIAL_CAPACITY;
+        this.count = 0;
+        segments.add(new long[capacity * BITS_PER_KEY / 64]);
+    }
+
+    // Registers an identifier fingerprint, opening a twice as large segment when the current one is full
+    public synchronized void add(long key) {
+        if (count == capacity) {
+            capacity *= 2;
+            count = 0;
+            segments.add(new long[capacity * BITS_PER_KEY / 64]);
+        }
+
+        long[] bits = segments.get(segments.size() - 1);
+        long mask = (long) bits.length * 64 - 1;
+        long h1 = RandomStreams.mix(key);
+        long h2 = RandomStreams.mix(h1) | 1;
+
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (h1 + i * h2) & mask;
+            bits[(int) (bit >>> 6)] |= 1L << bit;
+        }
+        count++;
+    }
+
+    // False means the key was never added; true means it probably was
+    public synchronized boolean mightContain(long key) {
+        long h1 = RandomStreams.mix(key);
+        long h2 = RandomStreams.mix(h1) | 1;
+
+        // Newest segment first, recently sold tickets are redeemed most often
+        for (int s = segments.size() - 1; s >= 0; s--) {
+            if (contains(segments.get(s), h1, h2)) {
+                return true;
+            }
+        }
+        return false;
+    }
+
+    private static boolean contains(long[] bits, long h1, long h2) {
+        long mask = (long) bits.length * 64 - 1;
+
+        for (int i = 0; i < HASHES; i++) {
+            long bit = (h1 + i * h2) & mask;
+            if ((bits[(int) (bit >>> 6)] & (1L << bit)) == 0) {
+                return false;
+            }
+        }
+        return true;
+    }
+}
@@ -1,92 +1,85 @@
 package institutions;
 
 import ticket.*;
+import exceptions.IllegalArgument;
 
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 // Handles a single lottery draw
 public class Lottery {
     private final int number; // Draw number
-    private long[] prizePools = new long[4]; // Prize pools
+    private final Game game; // Rules of the game drawn
+    private long[] prizePools; // Prize pools
     private final Set<Integer> winningNumbers; // Winning numbers
-    List<List<Integer>> winningTickets = new ArrayList<>(); // Lists of winning ticket numbers
+    private final TicketSet[] winningTickets; // Winning ticket numbers per tier
+    private final int[][] repeatedWinners; // Tickets winning a tier more than once, once per extra win
+    private final int[] repeatedCount; // Used length of each repeatedWinners array
+    private final int[] winningBets; // Winning bets per tier
     private int allBets; // Total number of bets checked
 
     // Constructor for a random draw
     protected Lottery(int number) {
-        this.number = number;
-
-        // Generate 6 random winning numbers
-        int[] numbers = generateNumbers();
-        this.winningNumbers = new TreeSet<>();
-        for (int i : numbers) {
-            this.winningNumbers.add(i);
-        }
-
-        // Initialize lists for winners (3+ correct numbers)
-        for (int i = 0; i < 4; i++) {
-            winningTickets.add(new ArrayList<>());
-        }
-
-        this.allBets = 0;
-        findWinners(); // Check all active tickets
+        this(number, Headquarters.getHeadquarters().getGame()
+                .drawNumbers(RandomStreams.stream(RandomStreams.Domain.DRAW, number)));
     }
 
     // Constructor with predefined winning numbers
     protected Lottery(int number, int[] numbers) {
         this.number = number;
+        this.game = Headquarters.getHeadquarters().getGame();
+        if (!game.isValidBet(numbers)) {
+            throw new IllegalArgument("Lottery: winning numbers do not fit " + game + ".");
+        }
 
         this.winningNumbers = new TreeSet<>();
         for (int i : numbers) {
             this.winningNumbers.add(i);
         }
 
-        for (int i = 0; i < 4; i++) {
-            winningTickets.add(new ArrayList<>());
+        // Initialize sets for winners of every prize tier
+        int tiers = game.numberOfTiers();
+        this.prizePools = new long[tiers];
+        this.winningTickets = new TicketSet[tiers];
+        this.repeatedWinners = new int[tiers][];
+        this.repeatedCount = new int[tiers];
+        this.winningBets = new int[tiers];
+        for (int i = 0; i < tiers; i++) {
+            winningTickets[i] = new TicketSet();
+            repeatedWinners[i] = new int[4];
         }
 
         this.allBets = 0;
         findWinners(); // Check all active tickets
     }
 
-    // Generate 6 unique random numbers from 1 to 49
+    // Generate unique random numbers of the current game; not reproducible, see RandomStreams
     public static int[] generateNumbers() {
-        ArrayList<Integer> numbers = new ArrayList<>();
-        for (int i = 1; i <= 49; i++) {
-            numbers.add(i);
-        }
-
-        Collections.shuffle(numbers);
-        int[] drawnNumbers = new int[6];
-        for (int j = 0; j < 6; j++) {
-            drawnNumbers[j] = numbers.get(j);
-        }
+        return generateNumbers(ThreadLocalRandom.current());
+    }
 
-        return drawnNumbers;
+    // Generate unique numbers of the current game from the given stream, see Game.drawNumbers
+    public static int[] generateNumbers(RandomGenerator random) {
+        return Headquarters.getHeadquarters().getGame().drawNumbers(random);
     }
 
-    // Searches all lottery offices and their tickets for winners
+    // Merges the winning numbers' posting lists in the bet index each office built while selling;
+    // the draw is cut off, so the indexes no longer change
     private void findWinners() {
-        for (int numer : Headquarters.getHeadquarters().getOfficeNumber()) {
-            CollectionOffice collectionOffice = Headquarters.getHeadquarters().getOffice(numer);
-            List<Ticket> purchasedTickets = collectionOffice.getLotteryTickets(this.number);
-
-            for (Ticket ticket : purchasedTickets) {
-                checkTicket(ticket);
-            }
+        int[] numbers = new int[winningNumbers.size()];
+        int i = 0;
+        for (int winningNumber : winningNumbers) {
+            numbers[i++] = winningNumber;
         }
-    }
 
-    // Check a ticket and register it in the winning lists if it has 3+ matches
-    private void checkTicket(Ticket ticket) {
-        List<Bet> form = ticket.getCorrectBets();
-        allBets += form.size();
-
-        for (Bet bet : form) {
-            int hits = correctNumbers(bet);
+        for (int numer : Headquarters.getHeadquarters().getOfficeNumber()) {
+            CollectionOffice collectionOffice = Headquarters.getHeadquarters().getOffice(numer);
+            DrawBetIndex bets = collectionOffice.takeBetIndex(this.number);
 
-            if (hits > 2) { // Only 3, 4, 5, 6 hits
-                winningTickets.get(6 - hits).add(ticket.getNumber());
+            if (bets != null) {
+                allBets += (int) bets.numberOfBets();
+                bets.collectWinners(numbers, game, this);
             }
         }
     }
@@ -96,17 +89,6 @@ public class Lottery {
         return allBets;
     }
 
-    // Count how many numbers in the bet match the winning numbers
-    private int correctNumbers(Bet bet) {
-        int hits = 0;
-        for (int number : bet.getNumbers()) {
-            if (winningNumbers.contains(number)) {
-                hits++;
-            }
-        }
-        return hits;
-    }
-
     // Return the prize pools
     protected long[] getPrizePools() {
         return prizePools;
@@ -117,9 +99,73 @@ public class Lottery {
         this.prizePools = wonAmounts;
     }
 
-    // Return the lists of winning tickets
+    // Registers a winning bet of the ticket in the tier
+    protected void addWinner(int tier, int ticketNumber) {
+        if (!winningTickets[tier].add(ticketNumber)) {
+            int size = repeatedCount[tier];
+            if (size == repeatedWinners[tier].length) {
+                repeatedWinners[tier] = Arrays.copyOf(repeatedWinners[tier], size * 2);
+            }
+            repeatedWinners[tier][size] = ticketNumber;
+            repeatedCount[tier] = size + 1;
+        }
+        winningBets[tier]++;
+    }
+
+    // Number of winning bets in the tier
+    protected int numberOfWinners(int tier) {
+        return winningBets[tier];
+    }
+
+    // Sorted winning ticket numbers of the tier, once per winning bet
+    private int[] winnerIndex(int tier) {
+        int[] winners = Arrays.copyOf(winningTickets[tier].toArray(), winningBets[tier]);
+        System.arraycopy(repeatedWinners[tier], 0, winners, winningTickets[tier].cardinality(), repeatedCount[tier]);
+        Arrays.sort(winners);
+        return winners;
+    }
+
+    // Return the lists of winning tickets, built from the winner sets
     protected List<List<Integer>> giveWinningTickets() {
-        return winningTickets;
+        List<List<Integer>> winning = new ArrayList<>();
+        for (int tier = 0; tier < winningTickets.length; tier++) {
+            int[] winners = winnerIndex(tier);
+            winning.add(new AbstractList<>() {
+                @Override
+                public Integer get(int index) {
+                    return winners[index];
+                }
+
+                @Override
+                public int size() {
+                    return winners.length;
+                }
+            });
+        }
+        return winning;
+    }
+
+    // Shrinks the finished draw to its immutable summary with a compact winner index
+    protected DrawSummary summarize() {
+        int[] numbers = new int[winningNumbers.size()];
+        int i = 0;
+        for (int winningNumber : winningNumbers) {
+            numbers[i++] = winningNumber;
+        }
+
+        int[][] winnerIndex = new int[winningTickets.length][];
+        for (int tier = 0; tier < winnerIndex.length; tier++) {
+            winnerIndex[tier] = winnerIndex(tier);
+        }
+        return new DrawSummary(number, numbers, allBets, prizePools, winnerIndex);
+    }
+
+    public int getNumber() {
+        return number;
+    }
+
+    public Game getGame() {
+        return game;
     }
 
     // Return the winning numbers
@@ -0,0 +1,64 @@
+package institutions;
+
+import player.Player;
+
+/**
+ * Batches the payouts of one office.
+ * A redemption credits the player at once, so their balance is exact when it returns, and only
+ * books the prize and the large-win tax here. Every batchSize payouts (and whenever the office is
+ * settled, e.g. before a draw) the batch goes to Headquarters as one debit, one tax payment and
+ * at most one subsidy, instead of a round trip to Headquarters and the state budget per winner.
+ */
+public class PayoutLedger {
+    private final Headquarters headquarters;
+    private final int batchSize; // Payouts per settlement
+    private long pendingPayouts; // Prizes credited to players, not yet debited from Headquarters
+    private long pendingTax; // Large-win tax withheld, not yet paid to the state
+    private int pendingCount; // Payouts in the current batch
+
+    public PayoutLedger(Headquarters headquarters, int batchSize) {
+        if (batchSize < 1) {
+            throw new IllegalArgumentException("Ledger: batch size must be > 0");
+        }
+
+        this.headquarters = headquarters;
+        this.batchSize = batchSize;
+    }
+
+    // Credits the player with the prize after tax and books both amounts
+    public void pay(Player player, long amount, long tax) {
+        player.addFunds(amount);
+
+        boolean full;
+        synchronized (this) {
+            pendingPayouts += amount;
+            pendingTax += tax;
+            full = ++pendingCount >= batchSize;
+        }
+        if (full) {
+            settle();
+        }
+    }
+
+    // Applies the booked payouts to Headquarters in a single update
+    public void settle() {
+        long payouts;
+        long tax;
+        synchronized (this) {
+            if (pendingCount == 0) {
+                return;
+            }
+            payouts = pendingPayouts;
+            tax = pendingTax;
+            pendingPayouts = 0;
+            pendingTax = 0;
+            pendingCount = 0;
+        }
+        headquarters.applyPayouts(payouts, tax);
+    }
+
+    // Payouts booked but not yet settled
+    public synchronized int pending() {
+        return pendingCount;
+    }
+}
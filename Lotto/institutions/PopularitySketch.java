@@ -0,0 +1,130 @@
+package institutions;
+
+import java.util.ArrayList;
+import java.util.Comparator;
+import java.util.List;
+import java.util.concurrent.atomic.AtomicLongArray;
+import java.util.concurrent.atomic.LongAdder;
+
+/**
+ * Fixed-memory, lock-free record of how heavily numbers and combinations are played.
+ * Single numbers are counted exactly. Combinations go into a count-min sketch
+ * (estimates never below the true count, above it by at most 2/width of all plays with high
+ * probability), and a small table of candidate slots keeps the combinations with the largest
+ * estimates: each combination may sit in one of two slots and evicts the lighter resident.
+ * Every update costs the same whatever the volume; counts are plays, i.e. bets times draws.
+ */
+public class PopularitySketch {
+    private final int depth; // Rows of the sketch
+    private final int width; // Counters per row, a power of two
+    private final AtomicLongArray counters; // depth x width count-min counters
+    private final AtomicLongArray candidates; // Heavy-hitter candidate masks, 0 for an empty slot
+    private final int topK; // Heavy hitters reported
+    private final LongAdder[] numbers = new LongAdder[Long.SIZE]; // Exact plays per number, index = number
+    private final LongAdder plays = new LongAdder(); // All combination plays
+
+    // One heavily played combination and its estimated number of plays
+    public record Combination(long mask, long estimate) {
+        public int[] numbers() {
+            int[] numbers = new int[Long.bitCount(mask)];
+            int i = 0;
+            for (long rest = mask; rest != 0; rest &= rest - 1) {
+                numbers[i++] = Long.numberOfTrailingZeros(rest);
+            }
+            return numbers;
+        }
+    }
+
+    public PopularitySketch(int depth, int width, int topK) {
+        if (depth < 1 || width < 1 || Integer.bitCount(width) != 1 || topK < 1) {
+            throw new IllegalArgumentException("Sketch: depth and top-K must be > 0, width a power of two.");
+        }
+
+        this.depth = depth;
+        this.width = width;
+        this.topK = topK;
+        this.counters = new AtomicLongArray(depth * width);
+        this.candidates = new AtomicLongArray(Integer.highestOneBit(topK * 4 - 1) << 1);
+        for (int number = 1; number < numbers.length; number++) {
+            numbers[number] = new LongAdder();
+        }
+    }
+
+    // Records plays of a bet (as a mask, see Bet.toMask)
+    public void add(long mask, long times) {
+        plays.add(times);
+        for (long rest = mask; rest != 0; rest &= rest - 1) {
+            numbers[Long.numberOfTrailingZeros(rest)].add(times);
+        }
+
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.addAndGet(row * width + column(mask, row), times));
+        }
+        offer(mask, estimate);
+    }
+
+    // Puts the combination into one of its two slots if it is heavier than the resident
+    private void offer(long mask, long estimate) {
+        int first = slot(mask, 0x5851F42D4C957F2DL);
+        int second = slot(mask, 0x14057B7EF767814FL);
+        long firstResident = candidates.get(first);
+        long secondResident = candidates.get(second);
+        if (firstResident == mask || secondResident == mask) {
+            return;
+        }
+
+        long firstEstimate = firstResident == 0 ? 0 : estimate(firstResident);
+        long secondEstimate = secondResident == 0 ? 0 : estimate(secondResident);
+        if (firstEstimate <= secondEstimate) {
+            if (estimate > firstEstimate) {
+                candidates.compareAndSet(first, firstResident, mask);
+            }
+        } else if (estimate > secondEstimate) {
+            candidates.compareAndSet(second, secondResident, mask);
+        }
+    }
+
+    // Estimated plays of the combination; never below the true count
+    public long estimate(long mask) {
+        long estimate = Long.MAX_VALUE;
+        for (int row = 0; row < depth; row++) {
+            estimate = Math.min(estimate, counters.get(row * width + column(mask, row)));
+        }
+        return estimate;
+    }
+
+    // Exact plays of a single number
+    public long numberPlays(int number) {
+        if (number < 1 || number >= numbers.length) {
+            throw new IllegalArgumentException("Sketch: number must be from 1 to " + (numbers.length - 1) + ".");
+        }
+        return numbers[number].sum();
+    }
+
+    public long totalPlays() {
+        return plays.sum();
+    }
+
+    // The most played combinations found so far, heaviest first
+    public List<Combination> heavyHitters() {
+        List<Combination> found = new ArrayList<>();
+        for (int i = 0; i < candidates.length(); i++) {
+            long mask = candidates.get(i);
+            if (mask != 0) {
+                found.add(new Combination(mask, estimate(mask)));
+            }
+        }
+
+        found.sort(Comparator.comparingLong(Combination::estimate).reversed());
+        return found.size() > topK ? List.copyOf(found.subList(0, topK)) : found;
+    }
+
+    private int column(long mask, int row) {
+        return (int) RandomStreams.mix(mask + (row + 1) * 0x9E3779B97F4A7C15L) & (width - 1);
+    }
+
+    private int slot(long mask, long seed) {
+        return (int) RandomStreams.mix(mask ^ seed) & (candidates.length() - 1);
+    }
+}
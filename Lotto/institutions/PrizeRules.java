@@ -0,0 +1,38 @@
+package institutions;
+
+/**
+ * Prizing rules shared by the live draws and the analysis tools:
+ * prize pools per tier and the jackpot rollover of 6-of-49, and the large-win tax.
+ * All amounts are in grosz; tier index = prize tier - 1.
+ */
+public final class PrizeRules {
+    public static final long GUARANTEED_JACKPOT = 2_000_000_00L; // Minimum first prize pool when won
+    public static final long LARGE_WIN_THRESHOLD = 228000; // Single winnings taxed from this amount
+    public static final long BET_POOL_CONTRIBUTION = 240; // Part of a bet price left after the sales tax
+
+    private PrizeRules() {
+    }
+
+    /*
+     * Prize pools of a 6-of-49 draw with the given number of bets and winners per tier;
+     * the jackpot is the amount carried over before this draw. See Game for other games
+     */
+    public static long[] rewards(long numberOfBets, int[] winners, long jackpot, boolean firstDraw) {
+        return rewards(numberOfBets, winners, jackpot, firstDraw, new long[4]);
+    }
+
+    // Same as above, writing the pools into the given array (index = prize tier - 1) to avoid allocation in hot loops
+    public static long[] rewards(long numberOfBets, int[] winners, long jackpot, boolean firstDraw, long[] rewards) {
+        return Game.LOTTO.rewards(numberOfBets, winners, jackpot, firstDraw, rewards);
+    }
+
+    // Jackpot carried over to the next draw: grows while nobody hits six, resets when someone does
+    public static long nextJackpot(long numberOfBets, int[] winners, long jackpot, boolean firstDraw) {
+        return Game.LOTTO.nextJackpot(numberOfBets, winners, jackpot, firstDraw);
+    }
+
+    // 10% tax on the largest single winning of a ticket, if it exceeds the threshold
+    public static long largeWinTax(long highestAmountWon) {
+        return highestAmountWon >= LARGE_WIN_THRESHOLD ? (long) (highestAmountWon * 0.1) : 0;
+    }
+}
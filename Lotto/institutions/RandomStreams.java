@@ -0,0 +1,50 @@
+package institutions;
+
+import java.util.SplittableRandom;
+
+/**
+ * Single seeding hierarchy for all randomness in the simulation.
+ * Every entity gets its own stream derived only from the root seed, its domain and its identity
+ * (draw number, player number, ticket number), never from the order in which streams are requested.
+ * The same seed therefore gives bit-identical draws, blanks and player choices whatever the
+ * number of threads, as long as entities get the same identities.
+ * The root seed comes from the "lotto.seed" system property, or is random if it is not set.
+ */
+public final class RandomStreams {
+    // Kinds of entities owning a stream
+    public enum Domain {
+        SIMULATION, // Scenario setup, e.g. creating players in Presentation
+        DRAW, // Winning numbers, by draw number
+        PLAYER, // Player decisions, by player number
+        TICKET, // Ticket identifier marker, by ticket number
+        FORM, // Randomly filled blank, by the number of the ticket it is sold as
+        POPULATION // Rows of a player Population, by row
+    }
+
+    private static volatile long rootSeed = Long.getLong("lotto.seed", System.nanoTime() ^ System.currentTimeMillis());
+
+    private RandomStreams() {
+    }
+
+    // Sets the root seed; streams created afterwards are reproducible from it
+    public static void setSeed(long seed) {
+        rootSeed = seed;
+    }
+
+    public static long getSeed() {
+        return rootSeed;
+    }
+
+    // New independent stream of the entity with the given identity
+    public static SplittableRandom stream(Domain domain, long id) {
+        long domainSeed = mix(rootSeed + (domain.ordinal() + 1) * 0x9E3779B97F4A7C15L);
+        return new SplittableRandom(mix(domainSeed ^ mix(id)));
+    }
+
+    // SplitMix64 finalizer, shared by everything that needs well-spread bits from a key or counter
+    public static long mix(long z) {
+        z = (z ^ (z >>> 30)) * 0xBF58476D1CE4E5B9L;
+        z = (z ^ (z >>> 27)) * 0x94D049BB133111EBL;
+        return z ^ (z >>> 31);
+    }
+}
@@ -0,0 +1,62 @@
+package institutions;
+
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Sales period of one draw, from the cutoff of the previous draw to its own.
+ * Every sale (and early withdrawal of a ticket) runs inside the epoch it entered, and goes
+ * into that draw. At the cutoff Headquarters opens the next epoch, so new sales continue at
+ * once, closes this one and waits only for the calls already inside it; after that nothing
+ * can change the tickets of the draw, which is then evaluated on that fixed snapshot.
+ */
+public final class SalesEpoch {
+    private final int draw; // Draw the tickets sold in this epoch start with
+    private final AtomicInteger inFlight = new AtomicInteger(); // Calls inside the epoch
+    private volatile boolean closed;
+
+    protected SalesEpoch(int draw) {
+        this.draw = draw;
+    }
+
+    public int getDraw() {
+        return draw;
+    }
+
+    // Enters the epoch; false if it is already closed and the caller has to enter the next one
+    boolean enter() {
+        // Counted before the check, so the cutoff either waits for the call or the call sees the epoch closed
+        inFlight.incrementAndGet();
+        if (closed) {
+            leave();
+            return false;
+        }
+        return true;
+    }
+
+    public void leave() {
+        if (inFlight.decrementAndGet() == 0 && closed) {
+            synchronized (this) {
+                notifyAll();
+            }
+        }
+    }
+
+    // Closes the epoch and waits for the calls inside it to leave
+    void close() {
+        closed = true;
+
+        boolean interrupted = false;
+        synchronized (this) {
+            while (inFlight.get() > 0) {
+                try {
+                    wait();
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+}
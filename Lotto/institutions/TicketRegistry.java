@@ -0,0 +1,143 @@
+package institutions;
+
+import ticket.*;
+
+import java.util.Arrays;
+
+/**
+ * Global index of all issued tickets, resolving printed identifiers (ticket-office-marker-check).
+ * Ticket numbers come from a dense global counter, so the index is a set of arrays addressed by
+ * ticket number, holding the packed office and marker of each ID next to the ticket and its status.
+ * Printed identifiers are parsed in place and their check digit is verified before any lookup.
+ * Redeemed tickets are released, keeping only their 13 bytes of ID and status, so the tickets
+ * held in memory are the ones that can still be redeemed.
+ */
+public class TicketRegistry {
+    private static final int INITIAL_CAPACITY = 1 << 10;
+
+    private Ticket[] tickets = new Ticket[INITIAL_CAPACITY]; // Tickets by number
+    private long[] officeMarkers = new long[INITIAL_CAPACITY]; // Packed office and marker by ticket number
+    private byte[] statuses = new byte[INITIAL_CAPACITY]; // TicketStatus ordinal by ticket number
+
+    private static final TicketStatus[] STATUSES = TicketStatus.values();
+
+    // Registers a freshly issued ticket
+    protected synchronized void register(Ticket ticket) {
+        int number = ticket.getNumber();
+        if (number >= tickets.length) {
+            int capacity = Math.max(tickets.length * 2, number + 1);
+            tickets = Arrays.copyOf(tickets, capacity);
+            officeMarkers = Arrays.copyOf(officeMarkers, capacity);
+            statuses = Arrays.copyOf(statuses, capacity);
+        }
+
+        tickets[number] = ticket;
+        officeMarkers[number] = ticket.getId().packOfficeMarker();
+        statuses[number] = (byte) TicketStatus.ACTIVE.ordinal();
+    }
+
+    protected synchronized void setStatus(int ticketNumber, TicketStatus status) {
+        if (ticketNumber > 0 && ticketNumber < tickets.length && tickets[ticketNumber] != null) {
+            statuses[ticketNumber] = (byte) status.ordinal();
+        }
+    }
+
+    // Marks an active ticket as expired; a ticket redeemed in the meantime stays redeemed
+    protected synchronized void expire(int ticketNumber) {
+        if (ticketNumber > 0 && ticketNumber < tickets.length
+                && statuses[ticketNumber] == (byte) TicketStatus.ACTIVE.ordinal()) {
+            statuses[ticketNumber] = (byte) TicketStatus.EXPIRED.ordinal();
+        }
+    }
+
+    // Drops a redeemed ticket; its identifier still resolves, to the REDEEMED status and no ticket
+    protected synchronized void release(int ticketNumber) {
+        if (ticketNumber > 0 && ticketNumber < tickets.length
+                && statuses[ticketNumber] == (byte) TicketStatus.REDEEMED.ordinal()) {
+            tickets[ticketNumber] = null;
+        }
+    }
+
+    // Returns the ticket with the given number, or null if it was never issued or is released
+    protected synchronized Ticket getTicket(int ticketNumber) {
+        return ticketNumber > 0 && ticketNumber < tickets.length ? tickets[ticketNumber] : null;
+    }
+
+    // Returns the ticket with the printed identifier, or null if it is malformed, forged, unknown or redeemed
+    public synchronized Ticket findTicket(CharSequence printedId) {
+        int number = resolve(printedId);
+        return number > 0 ? tickets[number] : null;
+    }
+
+    public synchronized TicketStatus getStatus(CharSequence printedId) {
+        int number = resolve(printedId);
+        return number > 0 ? STATUSES[statuses[number]] : TicketStatus.UNKNOWN;
+    }
+
+    /*
+     * Bulk lookup: resolves all identifiers under a single lock and fills the output arrays
+     * at the same positions (null and UNKNOWN for unresolved ones); returns how many resolved
+     */
+    public synchronized int findTickets(CharSequence[] printedIds, Ticket[] found, TicketStatus[] status) {
+        if (found.length < printedIds.length || status.length < printedIds.length) {
+            throw new IllegalArgumentException("Registry: output arrays shorter than the input.");
+        }
+
+        int resolved = 0;
+        for (int i = 0; i < printedIds.length; i++) {
+            int number = resolve(printedIds[i]);
+            if (number > 0) {
+                found[i] = tickets[number];
+                status[i] = STATUSES[statuses[number]];
+                resolved++;
+            } else {
+                found[i] = null;
+                status[i] = TicketStatus.UNKNOWN;
+            }
+        }
+        return resolved;
+    }
+
+    /*
+     * Parses ticket-office-marker-check without allocating, verifies the check digit
+     * and compares the packed office and marker; returns the ticket number or -1
+     */
+    private int resolve(CharSequence printedId) {
+        if (printedId == null) return -1;
+
+        int number = 0, office = 0, marker = 0;
+        int field = 0;
+        long value = 0;
+        int digits = 0;
+
+        for (int i = 0; i < printedId.length(); i++) {
+            char c = printedId.charAt(i);
+            if (c >= '0' && c <= '9') {
+                value = value * 10 + (c - '0');
+                if (value > Integer.MAX_VALUE) return -1;
+                digits++;
+            } else if (c == '-' && digits > 0 && field < 3) {
+                switch (field++) {
+                    case 0 -> number = (int) value;
+                    case 1 -> office = (int) value;
+                    default -> marker = (int) value;
+                }
+                value = 0;
+                digits = 0;
+            } else {
+                return -1;
+            }
+        }
+        if (field != 3 || digits == 0) return -1;
+        int check = (int) value;
+
+        if (number < 1 || office < 1 || ID.checkDigit(number, office, marker) != check) {
+            return -1;
+        }
+        // Numbers never issued have no office marker, released ones keep theirs
+        if (number >= tickets.length || officeMarkers[number] != ID.packOfficeMarker(office, marker)) {
+            return -1;
+        }
+        return number;
+    }
+}
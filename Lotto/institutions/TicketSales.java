@@ -0,0 +1,244 @@
+package institutions;
+
+import player.Player;
+import ticket.Form;
+import ticket.Ticket;
+
+import java.util.Map;
+import java.util.concurrent.ArrayBlockingQueue;
+import java.util.concurrent.BlockingQueue;
+import java.util.concurrent.CompletableFuture;
+import java.util.concurrent.ConcurrentHashMap;
+import java.util.concurrent.RejectedExecutionException;
+import java.util.concurrent.atomic.AtomicInteger;
+
+/**
+ * Non-blocking front end for ticket sales.
+ * Every office gets a desk: a bounded queue of purchase orders and a worker thread that sells them
+ * in order. A purchase returns at once with a future of the ticket, which holds null if the player
+ * could not afford it, like giveTicket. An order that cannot be accepted (sales closed, queue full,
+ * no such office) gets a failed future right away instead of waiting, so the latency of accepted
+ * orders stays bounded under overload.
+ * Orders are sold one at a time, each under its player's lock and its own entry into the sales
+ * epoch: a worker must not wait for a player's lock inside an epoch, since the player may be
+ * redeeming a ticket that waits for the draw that is waiting for the epoch.
+ * Before each cutoff the draw waits until every desk has sold the orders queued so far, so an order
+ * placed before a draw goes into that draw. Closing sales stops new orders and waits for the queued ones.
+ */
+public final class TicketSales implements DrawListener, AutoCloseable {
+    private final int queueCapacity; // Orders waiting at one office
+    private final Map<Integer, Desk> desks = new ConcurrentHashMap<>(); // Desks by office number
+    private final AtomicInteger pending = new AtomicInteger(); // Accepted orders not completed yet
+    private final Object cutoff = new Object(); // Held while draining, so close() does not stop a worker with a marker queued
+    private volatile boolean open = true;
+    private volatile boolean shutdown;
+
+    public TicketSales(int queueCapacity) {
+        if (queueCapacity < 1) {
+            throw new IllegalArgumentException("Sales: queue capacity must be > 0");
+        }
+
+        this.queueCapacity = queueCapacity;
+        Headquarters.getHeadquarters().addDrawListener(this);
+    }
+
+    // Orders a ticket with the filled blank at the office
+    public CompletableFuture<Ticket> buyTicket(Player player, int office, Form form) {
+        return submit(office, new Order(player, form, 0, 0));
+    }
+
+    // Orders a randomly filled ticket at the office
+    public CompletableFuture<Ticket> buyTicket(Player player, int office, int numberOfBets, int numberOfDraws) {
+        return submit(office, new Order(player, null, numberOfBets, numberOfDraws));
+    }
+
+    private CompletableFuture<Ticket> submit(int office, Order order) {
+        // Counted before the check, so closeSales() either sees the order or the order sees the sales closed
+        pending.incrementAndGet();
+        if (!open) {
+            completed();
+            return CompletableFuture.failedFuture(new RejectedExecutionException("Sales are closed."));
+        }
+
+        Desk desk;
+        try {
+            desk = desks.computeIfAbsent(office, Desk::new);
+        } catch (RuntimeException e) {
+            completed();
+            return CompletableFuture.failedFuture(e);
+        }
+        if (!desk.queue.offer(order)) {
+            completed();
+            return CompletableFuture.failedFuture(
+                    new RejectedExecutionException("Office " + office + " is overloaded, " + queueCapacity + " orders waiting."));
+        }
+        return order.ticket;
+    }
+
+    // Sells every order queued so far before the draw is cut off
+    @Override
+    public void salesClosing(int draw) {
+        boolean interrupted = false;
+        synchronized (cutoff) {
+            if (shutdown) {
+                return;
+            }
+
+            // A marker behind the queued orders of each desk; its worker completes it once they are sold
+            for (Desk desk : desks.values()) {
+                Order marker = new Order(null, null, 0, 0);
+                while (true) {
+                    try {
+                        desk.queue.put(marker);
+                        break;
+                    } catch (InterruptedException e) {
+                        interrupted = true;
+                    }
+                }
+                marker.ticket.join();
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    // Sales go on through the draw, nothing to do after it
+    @Override
+    public void drawCompleted(DrawSummary draw) {
+    }
+
+    // Stops accepting orders and waits until all accepted ones are completed
+    public void closeSales() throws InterruptedException {
+        open = false;
+        synchronized (pending) {
+            while (pending.get() > 0) {
+                pending.wait();
+            }
+        }
+    }
+
+    // Accepts orders again, e.g. after the draw
+    public void openSales() {
+        if (shutdown) {
+            throw new IllegalStateException("Sales are shut down.");
+        }
+        open = true;
+    }
+
+    public boolean isOpen() {
+        return open;
+    }
+
+    // Orders waiting at the office
+    public int queued(int office) {
+        Desk desk = desks.get(office);
+        return desk == null ? 0 : desk.queue.size();
+    }
+
+    // Drains the queues and stops the workers; an interrupt does not cut this short, it is restored at the end
+    @Override
+    public void close() {
+        boolean interrupted = false;
+        while (true) {
+            try {
+                closeSales();
+                break;
+            } catch (InterruptedException e) {
+                interrupted = true;
+            }
+        }
+
+        synchronized (cutoff) {
+            shutdown = true;
+        }
+        Headquarters.getHeadquarters().removeDrawListener(this);
+        for (Desk desk : desks.values()) {
+            desk.worker.interrupt();
+            while (true) {
+                try {
+                    desk.worker.join();
+                    break;
+                } catch (InterruptedException e) {
+                    interrupted = true;
+                }
+            }
+        }
+        if (interrupted) {
+            Thread.currentThread().interrupt();
+        }
+    }
+
+    private void completed() {
+        if (pending.decrementAndGet() == 0 && !open) {
+            synchronized (pending) {
+                pending.notifyAll();
+            }
+        }
+    }
+
+    // Purchase order: a filled blank, or the size of a random one; without a player, a cutoff marker
+    private static final class Order {
+        final Player player;
+        final Form form;
+        final int numberOfBets;
+        final int numberOfDraws;
+        final CompletableFuture<Ticket> ticket = new CompletableFuture<>();
+
+        Order(Player player, Form form, int numberOfBets, int numberOfDraws) {
+            this.player = player;
+            this.form = form;
+            this.numberOfBets = numberOfBets;
+            this.numberOfDraws = numberOfDraws;
+        }
+    }
+
+    // Queue and worker of one office
+    private final class Desk implements Runnable {
+        final CollectionOffice office;
+        final BlockingQueue<Order> queue = new ArrayBlockingQueue<>(queueCapacity);
+        final Thread worker;
+
+        Desk(int number) {
+            this.office = Headquarters.getHeadquarters().getOffice(number);
+            if (office == null) {
+                throw new IllegalArgumentException("Sales: no office number " + number);
+            }
+
+            this.worker = new Thread(this, "ticket-sales-" + number);
+            worker.setDaemon(true);
+            worker.start();
+        }
+
+        @Override
+        public void run() {
+            while (!shutdown || !queue.isEmpty()) {
+                Order order;
+                try {
+                    order = queue.take();
+                } catch (InterruptedException e) {
+                    continue; // woken by close(); the loop ends once the queue is empty
+                }
+
+                if (order.player == null) {
+                    order.ticket.complete(null);
+                } else {
+                    sell(order);
+                }
+            }
+        }
+
+        private void sell(Order order) {
+            try {
+                Ticket ticket = order.form != null
+                        ? order.player.buyTicket(office, order.form)
+                        : order.player.buyTicket(office, order.numberOfBets, order.numberOfDraws);
+                order.ticket.complete(ticket);
+            } catch (RuntimeException e) {
+                order.ticket.completeExceptionally(e);
+            } finally {
+                completed();
+            }
+        }
+    }
+}
@@ -0,0 +1,9 @@
+package institutions;
+
+// State of a ticket as seen by the central ticket registry
+public enum TicketStatus {
+    UNKNOWN, // Malformed, forged or never issued identifier
+    ACTIVE, // Issued, some of its draws are still ahead
+    EXPIRED, // All its draws are done, not yet redeemed
+    REDEEMED // Already paid out by its office
+}
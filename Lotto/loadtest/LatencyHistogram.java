@@ -0,0 +1,72 @@
+package loadtest;
+
+/**
+ * Log-linear histogram of latencies in nanoseconds, with about 3% relative error.
+ * Values below 64 get their own bucket; above that every power of two is split into
+ * 32 buckets. Not thread-safe: each replay thread records into its own and they are merged.
+ */
+public class LatencyHistogram {
+    private static final int SUB_BUCKETS = 32;
+    private static final int LINEAR = 2 * SUB_BUCKETS; // Values recorded exactly
+
+    private final long[] counts = new long[LINEAR + (63 - 6 + 1) * SUB_BUCKETS];
+    private long total;
+    private long max;
+
+    public void record(long nanos) {
+        long value = Math.max(nanos, 0);
+        counts[indexOf(value)]++;
+        total++;
+        max = Math.max(max, value);
+    }
+
+    public void merge(LatencyHistogram other) {
+        for (int i = 0; i < counts.length; i++) {
+            counts[i] += other.counts[i];
+        }
+        total += other.total;
+        max = Math.max(max, other.max);
+    }
+
+    public long count() {
+        return total;
+    }
+
+    public long max() {
+        return max;
+    }
+
+    // Latency below which the given fraction of the recorded values lie, e.g. 0.99
+    public long percentile(double fraction) {
+        if (total == 0) {
+            return 0;
+        }
+
+        long rank = Math.max(1, (long) Math.ceil(fraction * total));
+        long seen = 0;
+        for (int i = 0; i < counts.length; i++) {
+            seen += counts[i];
+            if (seen >= rank) {
+                return Math.min(highestValueOf(i), max);
+            }
+        }
+        return max;
+    }
+
+    private static int indexOf(long value) {
+        if (value < LINEAR) {
+            return (int) value;
+        }
+        int exponent = 63 - Long.numberOfLeadingZeros(value); // At least 6
+        return LINEAR + (exponent - 6) * SUB_BUCKETS + (int) ((value >>> (exponent - 5)) & (SUB_BUCKETS - 1));
+    }
+
+    private static long highestValueOf(int index) {
+        if (index < LINEAR) {
+            return index;
+        }
+        int exponent = (index - LINEAR) / SUB_BUCKETS + 6;
+        long subBucket = (index - LINEAR) % SUB_BUCKETS;
+        return ((SUB_BUCKETS + subBucket + 1) << (exponent - 5)) - 1;
+    }
+}
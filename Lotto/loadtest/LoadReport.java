@@ -0,0 +1,61 @@
+package loadtest;
+
+import java.util.EnumMap;
+import java.util.Map;
+
+/**
+ * Outcome of a trace replay: latency distribution per operation and sustained throughput.
+ * When the replay is paced, latency is measured from the moment each call was due,
+ * so a stall also counts against the calls queued behind it.
+ */
+public class LoadReport {
+    private final Map<Trace.Operation, LatencyHistogram> latencies;
+    private final long elapsedNanos; // Wall time of the whole replay
+    private final int threads;
+    private final double rate; // Target calls per second, 0 when flat out
+    private final long failures; // Calls that threw, e.g. a redemption of a ticket the replay could not sell
+
+    protected LoadReport(Map<Trace.Operation, LatencyHistogram> latencies, long elapsedNanos, int threads, double rate, long failures) {
+        this.latencies = new EnumMap<>(latencies);
+        this.elapsedNanos = elapsedNanos;
+        this.threads = threads;
+        this.rate = rate;
+        this.failures = failures;
+    }
+
+    public LatencyHistogram getLatency(Trace.Operation operation) {
+        return latencies.get(operation);
+    }
+
+    public long totalCalls() {
+        long calls = 0;
+        for (LatencyHistogram histogram : latencies.values()) {
+            calls += histogram.count();
+        }
+        return calls;
+    }
+
+    public long getFailures() {
+        return failures;
+    }
+
+    // Calls completed per second over the whole replay
+    public double throughput() {
+        return elapsedNanos == 0 ? 0 : totalCalls() * 1e9 / elapsedNanos;
+    }
+
+    @Override
+    public String toString() {
+        StringBuilder sb = new StringBuilder(String.format("Replay on %d threads, %s: %d calls in %.3f s, %.0f calls/s, %d failed%n",
+                threads, rate > 0 ? String.format("paced at %.0f calls/s", rate) : "flat out",
+                totalCalls(), elapsedNanos / 1e9, throughput(), failures));
+        sb.append(String.format("%-12s %10s %10s %10s %10s %10s%n", "Operation", "Calls", "p50 us", "p99 us", "p999 us", "max us"));
+        for (Map.Entry<Trace.Operation, LatencyHistogram> entry : latencies.entrySet()) {
+            LatencyHistogram histogram = entry.getValue();
+            sb.append(String.format("%-12s %10d %10.1f %10.1f %10.1f %10.1f%n", entry.getKey(), histogram.count(),
+                    histogram.percentile(0.5) / 1e3, histogram.percentile(0.99) / 1e3,
+                    histogram.percentile(0.999) / 1e3, histogram.max() / 1e3));
+        }
+        return sb.toString();
+    }
+}
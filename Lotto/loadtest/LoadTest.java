@@ -0,0 +1,91 @@
+package loadtest;
+
+import institutions.Headquarters;
+import institutions.Lottery;
+import institutions.RandomStreams;
+import ticket.Ticket;
+
+import java.io.IOException;
+import java.nio.file.Path;
+import java.util.ArrayList;
+import java.util.List;
+import java.util.SplittableRandom;
+
+/**
+ * Command line entry of the load-test harness; run each mode in its own JVM.
+ *   record <trace> [offices players draws seed] - records a synthetic session: every draw each player
+ *       buys a filled or random ticket, then redeems the tickets whose draws are over
+ *   replay <trace> [threads rate] - replays the trace, rate 0 meaning flat out, and prints the report
+ */
+public class LoadTest {
+    public static void main(String[] args) throws IOException, InterruptedException {
+        if (args.length < 2) {
+            System.out.println("Usage: record <trace> [offices players draws seed] | replay <trace> [threads rate]");
+            return;
+        }
+
+        Path path = Path.of(args[1]);
+        if (args[0].equals("record")) {
+            int offices = args.length > 2 ? Integer.parseInt(args[2]) : 10;
+            int players = args.length > 3 ? Integer.parseInt(args[3]) : 1000;
+            int draws = args.length > 4 ? Integer.parseInt(args[4]) : 20;
+            long seed = args.length > 5 ? Long.parseLong(args[5]) : RandomStreams.getSeed();
+
+            Trace trace = record(offices, players, draws, seed);
+            trace.write(path);
+            System.out.println("Recorded " + trace.getEvents().size() + " calls to " + path);
+        } else if (args[0].equals("replay")) {
+            int threads = args.length > 2 ? Integer.parseInt(args[2]) : Runtime.getRuntime().availableProcessors();
+            double rate = args.length > 3 ? Double.parseDouble(args[3]) : 0;
+
+            System.out.println(new TraceReplayer(Trace.read(path), threads, rate).replay());
+        } else {
+            System.out.println("Unknown mode: " + args[0]);
+        }
+        Headquarters.getHeadquarters().shutdown();
+    }
+
+    // Records a synthetic session
+    public static Trace record(int offices, int players, int draws, long seed) {
+        TraceRecorder recorder = new TraceRecorder(offices, players, 1_000_000_00L, seed);
+        SplittableRandom random = RandomStreams.stream(RandomStreams.Domain.SIMULATION, 0);
+        List<List<Ticket>> wallets = new ArrayList<>(players);
+        for (int i = 0; i < players; i++) {
+            wallets.add(new ArrayList<>());
+        }
+
+        for (int draw = 1; draw <= draws; draw++) {
+            for (int i = 0; i < players; i++) {
+                int office = random.nextInt(offices) + 1;
+                int numberOfDraws = random.nextInt(10) + 1;
+                Ticket ticket;
+                if (random.nextBoolean()) {
+                    int[][] bets = new int[random.nextInt(8) + 1][];
+                    for (int bet = 0; bet < bets.length; bet++) {
+                        bets[bet] = Lottery.generateNumbers(random);
+                    }
+                    ticket = recorder.buyTicket(i, office, recorder.getPlayer(i).fillForm(bets, numberOfDraws));
+                } else {
+                    ticket = recorder.buyTicket(i, office, random.nextInt(8) + 1, numberOfDraws);
+                }
+                if (ticket != null) {
+                    wallets.get(i).add(ticket);
+                }
+            }
+
+            recorder.lottery();
+
+            int lastDraw = Headquarters.getHeadquarters().getLotteriesCount();
+            for (int i = 0; i < players; i++) {
+                List<Ticket> wallet = wallets.get(i);
+                for (Ticket ticket : List.copyOf(wallet)) {
+                    if (ticket.getLastDraw() <= lastDraw) {
+                        recorder.redeemTicket(i, ticket);
+                        wallet.remove(ticket);
+                    }
+                }
+            }
+        }
+        return recorder.getTrace();
+    }
+}
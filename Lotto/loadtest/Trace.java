@@ -0,0 +1,153 @@
+package loadtest;
+
+import exceptions.IllegalArgument;
+import ticket.Form;
+import ticket.TicketCodec;
+
+import java.io.IOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+import java.util.ArrayList;
+import java.util.Collections;
+import java.util.List;
+
+/**
+ * Recorded sequence of calls against the Lotto core, with the setup needed to replay it:
+ * number of offices, players and their starting funds, and the root seed.
+ * Players are referred to by their index, and a redemption refers to the ticket by the
+ * index of the sale that issued it, since ticket numbers depend on the order of a replay.
+ * File layout: magic, header, event count, then one event after another, each starting
+ * with its operation byte; filled forms use the TicketCodec form layout.
+ */
+public class Trace {
+    private static final int MAGIC = 0x4C545243; // "LTRC"
+
+    // Recorded operations
+    public enum Operation {
+        SALE, // Player buys a ticket for a filled blank at an office
+        RANDOM_SALE, // Player buys a randomly filled ticket at an office
+        DRAW, // Headquarters conducts a draw
+        REDEEM // Player redeems the ticket issued by an earlier sale
+    }
+
+    // One recorded call; unused fields are 0 or null
+    public record Event(Operation operation, int player, int office, Form form, int bets, int draws, int sale) {
+    }
+
+    private final int offices;
+    private final int players;
+    private final long initialFunds; // Funds of every player, in grosz
+    private final long seed; // Root seed of RandomStreams
+    private final List<Event> events = new ArrayList<>();
+
+    public Trace(int offices, int players, long initialFunds, long seed) {
+        if (offices < 1 || players < 1 || initialFunds < 0) {
+            throw new IllegalArgument("Trace: at least one office and one player with non-negative funds required.");
+        }
+
+        this.offices = offices;
+        this.players = players;
+        this.initialFunds = initialFunds;
+        this.seed = seed;
+    }
+
+    public void add(Event event) {
+        events.add(event);
+    }
+
+    public List<Event> getEvents() {
+        return Collections.unmodifiableList(events);
+    }
+
+    public int getOffices() {
+        return offices;
+    }
+
+    public int getPlayers() {
+        return players;
+    }
+
+    public long getInitialFunds() {
+        return initialFunds;
+    }
+
+    public long getSeed() {
+        return seed;
+    }
+
+    // Number of sales in the trace, i.e. the range of sale indexes
+    public int numberOfSales() {
+        int sales = 0;
+        for (Event event : events) {
+            if (event.operation() == Operation.SALE || event.operation() == Operation.RANDOM_SALE) {
+                sales++;
+            }
+        }
+        return sales;
+    }
+
+    public void write(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.CREATE, StandardOpenOption.WRITE,
+                StandardOpenOption.TRUNCATE_EXISTING)) {
+            ByteBuffer buffer = ByteBuffer.allocate(1 << 16);
+            buffer.putInt(MAGIC).putInt(offices).putInt(players).putLong(initialFunds).putLong(seed).putInt(events.size());
+
+            for (Event event : events) {
+                if (buffer.remaining() < 1 + 3 * Integer.BYTES + TicketCodec.MAX_TICKET_SIZE) {
+                    flush(channel, buffer);
+                }
+
+                buffer.put((byte) event.operation().ordinal());
+                switch (event.operation()) {
+                    case SALE -> {
+                        buffer.putInt(event.player()).putInt(event.office());
+                        TicketCodec.writeForm(buffer, event.form());
+                    }
+                    case RANDOM_SALE -> buffer.putInt(event.player()).putInt(event.office())
+                            .put((byte) event.bets()).put((byte) event.draws());
+                    case REDEEM -> buffer.putInt(event.player()).putInt(event.sale());
+                    case DRAW -> {
+                    }
+                }
+            }
+            flush(channel, buffer);
+        }
+    }
+
+    private static void flush(FileChannel channel, ByteBuffer buffer) throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+    }
+
+    public static Trace read(Path path) throws IOException {
+        try (FileChannel channel = FileChannel.open(path, StandardOpenOption.READ)) {
+            ByteBuffer buffer = channel.map(FileChannel.MapMode.READ_ONLY, 0, channel.size());
+            if (buffer.getInt() != MAGIC) {
+                throw new IllegalArgument("Trace: " + path + " is not a trace file.");
+            }
+
+            Trace trace = new Trace(buffer.getInt(), buffer.getInt(), buffer.getLong(), buffer.getLong());
+            int count = buffer.getInt();
+            Operation[] operations = Operation.values();
+            for (int i = 0; i < count; i++) {
+                int operation = buffer.get();
+                if (operation < 0 || operation >= operations.length) {
+                    throw new IllegalArgument("Trace: corrupt event " + i + ".");
+                }
+
+                trace.add(switch (operations[operation]) {
+                    case SALE -> new Event(Operation.SALE, buffer.getInt(), buffer.getInt(), TicketCodec.readForm(buffer), 0, 0, 0);
+                    case RANDOM_SALE -> new Event(Operation.RANDOM_SALE, buffer.getInt(), buffer.getInt(), null, buffer.get(), buffer.get(), 0);
+                    case REDEEM -> new Event(Operation.REDEEM, buffer.getInt(), 0, null, 0, 0, buffer.getInt());
+                    case DRAW -> new Event(Operation.DRAW, 0, 0, null, 0, 0, 0);
+                });
+            }
+            return trace;
+        }
+    }
+}
@@ -0,0 +1,93 @@
+package loadtest;
+
+import institutions.CollectionOffice;
+import institutions.Headquarters;
+import institutions.RandomStreams;
+import player.Minimalist;
+import player.Player;
+import ticket.Form;
+import ticket.Ticket;
+
+import java.util.ArrayList;
+import java.util.HashMap;
+import java.util.List;
+import java.util.Map;
+
+/**
+ * Drives the Lotto core and records every call into a trace.
+ * Sets up the offices and players of the trace, then each method performs the real call
+ * through Player, CollectionOffice and Headquarters and appends the event, so a recorded
+ * session can be replayed later by TraceReplayer. Meant to run once per JVM, like the simulation.
+ */
+public class TraceRecorder {
+    private final Trace trace;
+    private final List<Player> players = new ArrayList<>();
+    private final Map<Integer, Integer> saleOfTicket = new HashMap<>(); // Sale index by ticket number
+    private int sales; // Sales recorded so far
+
+    public TraceRecorder(int offices, int players, long initialFunds, long seed) {
+        this.trace = new Trace(offices, players, initialFunds, seed);
+        RandomStreams.setSeed(seed);
+        this.players.addAll(setUp(trace));
+    }
+
+    // Creates the offices and players of the trace; shared with the replayer
+    static List<Player> setUp(Trace trace) {
+        Headquarters headquarters = Headquarters.getHeadquarters();
+        for (int office = 1; office <= trace.getOffices(); office++) {
+            if (headquarters.getOffice(office) == null) {
+                new CollectionOffice(office);
+            }
+        }
+
+        List<Player> players = new ArrayList<>(trace.getPlayers());
+        for (int i = 0; i < trace.getPlayers(); i++) {
+            players.add(new Minimalist("Load", "Test" + i, i, trace.getInitialFunds(), i % trace.getOffices() + 1));
+        }
+        return players;
+    }
+
+    public Player getPlayer(int player) {
+        return players.get(player);
+    }
+
+    // Player buys a ticket for a filled blank; returns null if they cannot afford it
+    public Ticket buyTicket(int player, int office, Form form) {
+        trace.add(new Trace.Event(Trace.Operation.SALE, player, office, form, 0, 0, 0));
+        return sold(players.get(player).buyTicket(Headquarters.getHeadquarters().getOffice(office), form));
+    }
+
+    // Player buys a randomly filled ticket; returns null if they cannot afford it
+    public Ticket buyTicket(int player, int office, int numberOfBets, int numberOfDraws) {
+        trace.add(new Trace.Event(Trace.Operation.RANDOM_SALE, player, office, null, numberOfBets, numberOfDraws, 0));
+        return sold(players.get(player).buyTicket(Headquarters.getHeadquarters().getOffice(office), numberOfBets, numberOfDraws));
+    }
+
+    private Ticket sold(Ticket ticket) {
+        if (ticket != null) {
+            saleOfTicket.put(ticket.getNumber(), sales);
+        }
+        sales++;
+        return ticket;
+    }
+
+    public void lottery() {
+        trace.add(new Trace.Event(Trace.Operation.DRAW, 0, 0, null, 0, 0, 0));
+        Headquarters.getHeadquarters().lottery();
+    }
+
+    // Player redeems a ticket bought during the recording
+    public void redeemTicket(int player, Ticket ticket) {
+        Integer sale = saleOfTicket.get(ticket.getNumber());
+        if (sale == null) {
+            throw new IllegalArgumentException("Recorder: ticket " + ticket.getNumber() + " was not sold in this trace.");
+        }
+
+        trace.add(new Trace.Event(Trace.Operation.REDEEM, player, 0, null, 0, 0, sale));
+        players.get(player).redeemTicket(ticket);
+    }
+
+    public Trace getTrace() {
+        return trace;
+    }
+}
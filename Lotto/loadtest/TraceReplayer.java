@@ -0,0 +1,156 @@
+package loadtest;
+
+import institutions.Headquarters;
+import institutions.RandomStreams;
+import player.Player;
+import ticket.Ticket;
+
+import java.util.ArrayList;
+import java.util.EnumMap;
+import java.util.List;
+import java.util.Map;
+import java.util.concurrent.Callable;
+import java.util.concurrent.ExecutionException;
+import java.util.concurrent.ExecutorService;
+import java.util.concurrent.Executors;
+import java.util.concurrent.Future;
+import java.util.concurrent.atomic.AtomicLong;
+import java.util.concurrent.locks.LockSupport;
+
+/**
+ * Replays a recorded trace against the Lotto core on many threads, flat out or at a given rate.
+ * Draws split the trace into segments: the sales and redemptions of a segment are spread over
+ * the threads by player (so one player's calls keep their order), and a draw starts only once
+ * the whole segment before it is done, as in the recording. Every call goes through Player,
+ * CollectionOffice and Headquarters unchanged. Like the recorder, it needs a fresh JVM.
+ */
+public class TraceReplayer {
+    private final Trace trace;
+    private final int threads;
+    private final double rate; // Calls per second, 0 for flat out
+    private final AtomicLong failures = new AtomicLong();
+    private List<Player> players;
+    private Ticket[] sold; // Tickets by sale index, null if the sale failed
+    private int[] saleIndex; // Sale index of each sale event
+    private long start;
+
+    public TraceReplayer(Trace trace, int threads, double rate) {
+        if (threads < 1 || rate < 0) {
+            throw new IllegalArgumentException("Replayer: at least one thread and a non-negative rate required.");
+        }
+
+        this.trace = trace;
+        this.threads = threads;
+        this.rate = rate;
+    }
+
+    public LoadReport replay() throws InterruptedException {
+        RandomStreams.setSeed(trace.getSeed());
+        players = TraceRecorder.setUp(trace);
+        List<Trace.Event> events = trace.getEvents();
+
+        sold = new Ticket[trace.numberOfSales()];
+        saleIndex = new int[events.size()];
+        int sales = 0;
+        for (int i = 0; i < events.size(); i++) {
+            Trace.Operation operation = events.get(i).operation();
+            if (operation == Trace.Operation.SALE || operation == Trace.Operation.RANDOM_SALE) {
+                saleIndex[i] = sales++;
+            }
+        }
+
+        LatencyHistogram[][] histograms = new LatencyHistogram[threads + 1][Trace.Operation.values().length];
+        for (LatencyHistogram[] perThread : histograms) {
+            for (int operation = 0; operation < perThread.length; operation++) {
+                perThread[operation] = new LatencyHistogram();
+            }
+        }
+
+        ExecutorService pool = Executors.newFixedThreadPool(threads);
+        try {
+            start = System.nanoTime();
+            int from = 0;
+            for (int i = 0; i < events.size(); i++) {
+                if (events.get(i).operation() == Trace.Operation.DRAW) {
+                    replaySegment(pool, from, i, histograms);
+                    call(i, histograms[threads]); // Draws run alone, on the calling thread
+                    from = i + 1;
+                }
+            }
+            replaySegment(pool, from, events.size(), histograms);
+        } finally {
+            pool.shutdown();
+        }
+        long elapsed = System.nanoTime() - start;
+        Headquarters.getHeadquarters().settlePayouts();
+
+        Map<Trace.Operation, LatencyHistogram> latencies = new EnumMap<>(Trace.Operation.class);
+        for (Trace.Operation operation : Trace.Operation.values()) {
+            LatencyHistogram merged = new LatencyHistogram();
+            for (LatencyHistogram[] perThread : histograms) {
+                merged.merge(perThread[operation.ordinal()]);
+            }
+            latencies.put(operation, merged);
+        }
+        return new LoadReport(latencies, elapsed, threads, rate, failures.get());
+    }
+
+    // Replays events [from, to), which contain no draw, on all threads and waits for them
+    private void replaySegment(ExecutorService pool, int from, int to, LatencyHistogram[][] histograms) throws InterruptedException {
+        List<Callable<Void>> tasks = new ArrayList<>(threads);
+        for (int thread = 0; thread < threads; thread++) {
+            int lane = thread;
+            tasks.add(() -> {
+                for (int i = from; i < to; i++) {
+                    if (trace.getEvents().get(i).player() % threads == lane) {
+                        call(i, histograms[lane]);
+                    }
+                }
+                return null;
+            });
+        }
+
+        for (Future<Void> future : pool.invokeAll(tasks)) {
+            try {
+                future.get();
+            } catch (ExecutionException e) {
+                throw new IllegalStateException("Replay failed", e.getCause());
+            }
+        }
+    }
+
+    // Performs one event when it is due and records its latency
+    private void call(int i, LatencyHistogram[] histograms) {
+        Trace.Event event = trace.getEvents().get(i);
+        long due = rate > 0 ? start + (long) (i * 1e9 / rate) : System.nanoTime();
+        for (long now = System.nanoTime(); now < due; now = System.nanoTime()) {
+            LockSupport.parkNanos(due - now);
+        }
+
+        try {
+            perform(i, event);
+        } catch (RuntimeException e) {
+            failures.incrementAndGet();
+            return;
+        }
+        histograms[event.operation().ordinal()].record(System.nanoTime() - due);
+    }
+
+    private void perform(int i, Trace.Event event) {
+        Headquarters headquarters = Headquarters.getHeadquarters();
+        switch (event.operation()) {
+            case SALE -> sold[saleIndex[i]] = players.get(event.player())
+                    .buyTicket(headquarters.getOffice(event.office()), event.form());
+            case RANDOM_SALE -> sold[saleIndex[i]] = players.get(event.player())
+                    .buyTicket(headquarters.getOffice(event.office()), event.bets(), event.draws());
+            case DRAW -> headquarters.lottery();
+            case REDEEM -> {
+                Ticket ticket = sold[event.sale()];
+                if (ticket == null) {
+                    throw new IllegalStateException("Ticket of sale " + event.sale() + " was not sold in the replay.");
+                }
+                players.get(event.player()).redeemTicket(ticket);
+            }
+        }
+    }
+}
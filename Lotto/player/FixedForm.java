@@ -1,14 +1,11 @@
 package player;
 
 import institutions.Headquarters;
-import ticket.Ticket;
 import exceptions.IllegalArgument;
 
 import java.util.List;
-import java.util.Random;
 
 public class FixedForm extends Player {
-    private static final Random random = new Random();
     private final int howOftenBuys;
     private final int[][] favouriteNumbers;
     private final List<Integer> favouriteOffices;
@@ -56,14 +53,13 @@ public class FixedForm extends Player {
 
     // Buys a ticket only if the previous one has expired (howOftenBuys() = how often the player buys)
     @Override
-    public void buyTicket() {
+    public synchronized void buyTicket() {
         if (this.tickets.isEmpty()) {
             buyTicket(howOftenBuys, favouriteNumbers);
             return;
         }
 
-        Ticket last = this.tickets.get(tickets.size() - 1);
-        int previousDraw = last.getDrawNumbers().getLast();
+        int previousDraw = this.tickets.latestLastDraw();
         if (previousDraw == Headquarters.getHeadquarters().getLotteriesCount() - howOftenBuys) {
             buyTicket(howOftenBuys, favouriteNumbers);
         }
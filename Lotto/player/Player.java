@@ -2,9 +2,11 @@ package player;
 
 import institutions.Headquarters;
 import institutions.CollectionOffice;
+import institutions.RandomStreams;
 import ticket.*;
 
 import java.util.*;
+import java.util.concurrent.atomic.AtomicLong;
 
 /**
  * Abstract class Gracz implements common methods for different player types
@@ -15,13 +17,21 @@ public abstract class Player {
     private final String surname;
     private final int pesel;
     private long funds;
-    protected List<Ticket> tickets = new ArrayList<>();
+    protected final TicketWallet tickets = new TicketWallet();
+    private static final AtomicLong playerCounter = new AtomicLong(); // Players numbered in order of creation
+    protected final SplittableRandom random; // Player's own stream for all their choices
 
     public Player(String name, String surname, int pesel, long funds) {
+        this(name, surname, pesel, funds, RandomStreams.stream(RandomStreams.Domain.PLAYER, playerCounter.incrementAndGet()));
+    }
+
+    // For players whose choices come from elsewhere, e.g. views of a Population row
+    protected Player(String name, String surname, int pesel, long funds, SplittableRandom random) {
         this.name = name;
         this.surname = surname;
         this.pesel = pesel;
         this.funds = funds;
+        this.random = random;
     }
 
     // Each player has their own way of choosing a collection depending on preferences
@@ -44,51 +54,58 @@ public abstract class Player {
      */
     public synchronized void buyTicket(int numberOfDraws, int[][] numbers) {
         CollectionOffice collectionOffice = Headquarters.getHeadquarters().getOffice(chooseCollectionOffice());
-
-        Form form = fillForm(numbers, numberOfDraws);
-        Ticket ticket = collectionOffice.giveTicket(form, this);
-
-        if (ticket != null) {
-            tickets.add(ticket);
-            funds -= ticket.getPrice();
-        }
+        buyTicket(collectionOffice, fillForm(numbers, numberOfDraws));
     }
 
     /* Overloaded method for a random ticket; only pass the number of draws and bets
      * The collection generates the ticket using the appropriate giveTicket() method
      */
     public synchronized void buyTicket(int numberOfBets, int numberOfDraws) {
+        CollectionOffice collectionOffice = Headquarters.getHeadquarters().getOffice(chooseCollectionOffice());
+        buyTicket(collectionOffice, numberOfBets, numberOfDraws);
+    }
+
+    // Buys a ticket for a filled blank at the given office; returns null if the transaction fails
+    public synchronized Ticket buyTicket(CollectionOffice collectionOffice, Form form) {
+        Ticket ticket = collectionOffice.giveTicket(form, this);
+        addTicket(ticket);
+        return ticket;
+    }
+
+    // Buys a randomly filled ticket at the given office; returns null if the transaction fails
+    public synchronized Ticket buyTicket(CollectionOffice collectionOffice, int numberOfBets, int numberOfDraws) {
         if (numberOfBets > 8) {
             throw new IllegalArgumentException("Bet limit exceeded (8)");
         }
 
-        CollectionOffice collectionOffice = Headquarters.getHeadquarters().getOffice(chooseCollectionOffice());
         Ticket ticket = collectionOffice.giveTicket(numberOfBets, numberOfDraws, this);
+        addTicket(ticket);
+        return ticket;
+    }
 
-        if (ticket != null) { // Only if the transaction is successful
+    // Only if the transaction is successful
+    protected void addTicket(Ticket ticket) {
+        if (ticket != null) {
             tickets.add(ticket);
             funds -= ticket.getPrice();
         }
     }
 
     // The player can check if the draws of their tickets have passed and claim them
-    public void checkTickets() {
-        List<Ticket> toCheck = new ArrayList<>(tickets);
-        for (Ticket ticket : toCheck) {
-            List<Integer> drawNumbers = ticket.getDrawNumbers();
-
-            if (drawNumbers.getLast() == Headquarters.getHeadquarters().getLotteriesCount()) { // if draws have ended
-                redeemTicket(ticket);
-            }
+    public synchronized void checkTickets() {
+        int lastDraw = Headquarters.getHeadquarters().getLotteriesCount();
+        for (Ticket ticket : tickets.expiredBy(lastDraw)) { // only tickets whose draws have ended
+            redeemTicket(ticket);
         }
     }
 
-    public void addFunds(long kwota) {
+    // Also called by office ledgers paying winnings, so it takes the player's lock like the purchases
+    public synchronized void addFunds(long kwota) {
         this.funds += kwota;
     }
 
     // Winnings can be claimed before the draws finish; removes the ticket to prevent fraud
-    public void redeemTicket(Ticket ticket) {
+    public synchronized void redeemTicket(Ticket ticket) {
         if (tickets.contains(ticket)) {
             CollectionOffice collectionOffice = Headquarters.getHeadquarters().getOffice(ticket.getOffice());
             collectionOffice.sprawdźKupon(ticket, this);
@@ -96,35 +113,36 @@ public abstract class Player {
         }
     }
 
-    // Less efficient method for manually claiming tickets before the draws finish
-    public void redeemTicket(int numer) {
-        Iterator<Ticket> iterator = tickets.iterator();
-        while (iterator.hasNext()) {
-            Ticket ticket = iterator.next();
-            if (ticket.getNumber() == numer) {
-                CollectionOffice collectionOffice = Headquarters.getHeadquarters().getOffice(ticket.getOffice());
-                collectionOffice.sprawdźKupon(ticket, this);
-                iterator.remove();
-            }
+    // Manually claiming a ticket by its number before the draws finish
+    public synchronized void redeemTicket(int numer) {
+        Ticket ticket = tickets.get(numer);
+        if (ticket != null) {
+            redeemTicket(ticket);
         }
     }
 
-    public long getBalance() {
+    public synchronized long getBalance() {
         return funds;
     }
 
+    // Tickets the player holds and has not redeemed yet
+    protected Iterable<Ticket> heldTickets() {
+        return tickets;
+    }
+
     // Prints personal information, ticket identifiers, and funds
-    public String getPlayerInfo() {
+    public synchronized String getPlayerInfo() {
         StringBuilder sb = new StringBuilder("Nazwisko: ");
         sb.append(surname).append("\nImię: ").append(name);
         sb.append("\nPESEL: ").append(pesel);
-        sb.append("\nPosiadane środki: ").append(funds / 100).append(" zł ").append(funds % 100).append(" gr\n");
+        sb.append("\nPosiadane środki: ").append(getBalance() / 100).append(" zł ").append(getBalance() % 100).append(" gr\n");
 
-        if (!tickets.isEmpty()) {
+        Iterator<Ticket> held = heldTickets().iterator();
+        if (held.hasNext()) {
             sb.append("Identyfikatory posiadanych kuponów: \n");
 
-            for (Ticket ticket : tickets) {
-                sb.append(ticket.printId()).append("\n");
+            while (held.hasNext()) {
+                sb.append(held.next().printId()).append("\n");
             }
         } else {
             sb.append("Gracz nie posiada kuponów!\n");
@@ -0,0 +1,552 @@
+package player;
+
+import exceptions.IllegalArgument;
+import institutions.Game;
+import institutions.Headquarters;
+import institutions.RandomStreams;
+import ticket.Ticket;
+
+import java.util.*;
+
+/**
+ * Compact store of simulated players, one row per player in primitive columns.
+ * Balance, strategy, its parameters and the favourite offices are arrays indexed by row; names
+ * are indexes into shared pools, fixed forms are packed into one byte pool and equal office
+ * lists are kept once. Held tickets sit in a pool of slots linked both by last draw and by row,
+ * so the check phase visits only the tickets that have just expired and a row's own tickets are
+ * found without looking at anyone else's. A row takes about 50 bytes (plus its fixed form and
+ * 24 bytes per held ticket), where a Player object with its strings, wallet and lists takes several hundred.
+ * Player views of a row are created only when asked for, see get. The buy and check phases run
+ * the strategies straight from the columns. Not thread-safe; the simulation drives it from one thread.
+ */
+public class Population {
+    // Strategies of the player classes, run from the columns
+    public enum Strategy {
+        MINIMALIST, // One random bet for the nearest draw at the favourite office, like Minimalist
+        RANDOM, // Random tickets at random offices, like Random
+        FIXED_FORM, // The same form at rotating offices when the previous ticket expires, like FixedForm
+        FIXED_NUMBER // One fixed bet for 10 draws, like FixedNumber
+    }
+
+    private static final Strategy[] STRATEGIES = Strategy.values();
+    private static final int NO_LIST = -1; // Office list of rows choosing offices at random
+
+    private final String[] names; // Shared pool of first names
+    private final String[] surnames; // Shared pool of surnames
+    private int size; // Rows in use
+
+    private short[] name; // Index into names
+    private short[] surname; // Index into surnames
+    private int[] pesel;
+    private long[] funds; // Balance in grosz
+    private byte[] strategy; // Strategy ordinal
+    private byte[] howOftenBuys; // Draws of every fixed-form ticket
+    private int[] form; // Offset of the fixed form in formNumbers
+    private byte[] formBets; // Bets of the fixed form, 0 for none
+    private int[] offices; // Index into officeLists, NO_LIST for random offices
+    private short[] officeCursor; // Next office of the list
+    private int[] held; // Tickets held, not redeemed yet
+    private int[] lastDraw; // Latest last draw of the tickets bought
+    private long[] seeds; // SplitMix64 state of the row's random choices
+    private int[] rowHead; // First slot of the row's held tickets, 0 for none
+
+    private byte[] formNumbers = new byte[256]; // Fixed forms, picks bytes per bet
+    private int formNumbersSize;
+    private final List<int[]> officeLists = new ArrayList<>(); // Distinct favourite office lists
+    private final Map<List<Integer>, Integer> officeListIndex = new HashMap<>();
+    private int[] allOffices; // Offices for random choices, taken once per buy phase
+
+    private final Holdings holdings = new Holdings(); // Held tickets, by last draw and by row
+    private Member cursor; // View moved from row to row by the buy and check phases, never handed out
+
+    public Population(String[] names, String[] surnames, int capacity) {
+        if (names.length == 0 || surnames.length == 0
+                || names.length > Short.MAX_VALUE || surnames.length > Short.MAX_VALUE) {
+            throw new IllegalArgument("Population: name pools must have from 1 to " + Short.MAX_VALUE + " names.");
+        }
+        if (capacity < 1) {
+            throw new IllegalArgument("Population: capacity must be > 0.");
+        }
+
+        this.names = names.clone();
+        this.surnames = surnames.clone();
+        this.name = new short[capacity];
+        this.surname = new short[capacity];
+        this.pesel = new int[capacity];
+        this.funds = new long[capacity];
+        this.strategy = new byte[capacity];
+        this.howOftenBuys = new byte[capacity];
+        this.form = new int[capacity];
+        this.formBets = new byte[capacity];
+        this.offices = new int[capacity];
+        this.officeCursor = new short[capacity];
+        this.held = new int[capacity];
+        this.lastDraw = new int[capacity];
+        this.seeds = new long[capacity];
+        this.rowHead = new int[capacity];
+    }
+
+    public int addMinimalist(int name, int surname, int pesel, long funds, int favOffice) {
+        if (favOffice < 1 || Headquarters.getHeadquarters().getOffice(favOffice) == null) {
+            throw new IllegalArgument("Minimalist: wrong office number (" + favOffice + ").");
+        }
+
+        int row = addRow(name, surname, pesel, funds, Strategy.MINIMALIST);
+        offices[row] = officeList(new int[]{favOffice});
+        return row;
+    }
+
+    public int addRandom(int name, int surname, int pesel) {
+        int row = addRow(name, surname, pesel, 0, Strategy.RANDOM);
+        offices[row] = NO_LIST;
+        funds[row] = nextInt(row, 100000000);
+        return row;
+    }
+
+    // Like the FixedForm constructor, buys the first ticket at once
+    public int addFixedForm(int name, int surname, int pesel, long funds, int[][] numbers, int[] favouriteOffices, int howOftenBuys) {
+        return addFixed(Strategy.FIXED_FORM, name, surname, pesel, funds, numbers, favouriteOffices, howOftenBuys);
+    }
+
+    public int addFixedNumber(int name, int surname, int pesel, long funds, int[] numbers, int[] favouriteOffices) {
+        return addFixed(Strategy.FIXED_NUMBER, name, surname, pesel, funds, new int[][]{numbers}, favouriteOffices, 10);
+    }
+
+    private int addFixed(Strategy kind, int name, int surname, int pesel, long funds, int[][] numbers,
+                         int[] favouriteOffices, int howOftenBuys) {
+        if (favouriteOffices == null || favouriteOffices.length == 0) {
+            throw new IllegalArgument("FixedForm player: no favourite offices to choose from.");
+        }
+        if (numbers == null || numbers.length == 0 || numbers.length > Byte.MAX_VALUE) {
+            throw new IllegalArgument("FixedForm player: no numbers to choose from.");
+        }
+        if (howOftenBuys < 1 || howOftenBuys > Byte.MAX_VALUE) {
+            throw new IllegalArgument("FixedForm player: how often to buy a ticket must be from 1 to " + Byte.MAX_VALUE + ".");
+        }
+
+        int list = officeList(favouriteOffices);
+        int row = addRow(name, surname, pesel, funds, kind);
+        offices[row] = list;
+        this.howOftenBuys[row] = (byte) howOftenBuys;
+        storeForm(row, numbers);
+
+        buy(row, cursor(row));
+        return row;
+    }
+
+    private int addRow(int name, int surname, int pesel, long funds, Strategy kind) {
+        if (name < 0 || name >= names.length || surname < 0 || surname >= surnames.length) {
+            throw new IllegalArgument("Population: no name " + name + " or surname " + surname + " in the pools.");
+        }
+        if (size == this.funds.length) {
+            grow();
+        }
+
+        int row = size++;
+        this.name[row] = (short) name;
+        this.surname[row] = (short) surname;
+        this.pesel[row] = pesel;
+        this.funds[row] = funds;
+        this.strategy[row] = (byte) kind.ordinal();
+        this.seeds[row] = RandomStreams.stream(RandomStreams.Domain.POPULATION, row).nextLong();
+        return row;
+    }
+
+    private void grow() {
+        int capacity = funds.length * 2;
+        name = Arrays.copyOf(name, capacity);
+        surname = Arrays.copyOf(surname, capacity);
+        pesel = Arrays.copyOf(pesel, capacity);
+        funds = Arrays.copyOf(funds, capacity);
+        strategy = Arrays.copyOf(strategy, capacity);
+        howOftenBuys = Arrays.copyOf(howOftenBuys, capacity);
+        form = Arrays.copyOf(form, capacity);
+        formBets = Arrays.copyOf(formBets, capacity);
+        offices = Arrays.copyOf(offices, capacity);
+        officeCursor = Arrays.copyOf(officeCursor, capacity);
+        held = Arrays.copyOf(held, capacity);
+        lastDraw = Arrays.copyOf(lastDraw, capacity);
+        seeds = Arrays.copyOf(seeds, capacity);
+        rowHead = Arrays.copyOf(rowHead, capacity);
+    }
+
+    // Packs the valid bets of the form; invalid ones would be dropped by Form anyway
+    private void storeForm(int row, int[][] numbers) {
+        Game game = Headquarters.getHeadquarters().getGame();
+        int picks = game.getPicks();
+        if (formNumbersSize + numbers.length * picks > formNumbers.length) {
+            formNumbers = Arrays.copyOf(formNumbers, Math.max(formNumbers.length * 2, formNumbersSize + numbers.length * picks));
+        }
+
+        form[row] = formNumbersSize;
+        for (int[] bet : numbers) {
+            if (game.isValidBet(bet)) {
+                for (int number : bet) {
+                    formNumbers[formNumbersSize++] = (byte) number;
+                }
+                formBets[row]++;
+            }
+        }
+    }
+
+    // Unpacks the fixed form of the row
+    private int[][] form(int row) {
+        int picks = Headquarters.getHeadquarters().getGame().getPicks();
+        int[][] numbers = new int[formBets[row]][picks];
+        for (int bet = 0; bet < numbers.length; bet++) {
+            for (int i = 0; i < picks; i++) {
+                numbers[bet][i] = formNumbers[form[row] + bet * picks + i] & 0xFF;
+            }
+        }
+        return numbers;
+    }
+
+    // Index of the office list, stored once however many rows share it
+    private int officeList(int[] list) {
+        if (list.length > Short.MAX_VALUE) {
+            throw new IllegalArgument("Population: at most " + Short.MAX_VALUE + " favourite offices.");
+        }
+        for (int office : list) {
+            if (office < 1 || Headquarters.getHeadquarters().getOffice(office) == null) {
+                throw new IllegalArgument("Player: office number " + office + " does not exist.");
+            }
+        }
+
+        return officeListIndex.computeIfAbsent(Arrays.stream(list).boxed().toList(), key -> {
+            officeLists.add(list.clone());
+            return officeLists.size() - 1;
+        });
+    }
+
+    // Office for the row's next ticket: the next favourite, or a random one
+    private int nextOffice(int row) {
+        if (offices[row] == NO_LIST) {
+            if (allOffices == null) {
+                allOffices = Headquarters.getHeadquarters().getOfficeNumber().stream().mapToInt(Integer::intValue).toArray();
+            }
+            if (allOffices.length == 0) throw new IllegalArgument("No collection offices to choose from.");
+            return allOffices[nextInt(row, allOffices.length)];
+        }
+
+        int[] list = officeLists.get(offices[row]);
+        if (officeCursor[row] >= list.length) {
+            officeCursor[row] = 0;
+        }
+        return list[officeCursor[row]++];
+    }
+
+    // Next random int from 0 to bound - 1 of the row's own SplitMix64 stream
+    private int nextInt(int row, int bound) {
+        seeds[row] += 0x9E3779B97F4A7C15L;
+        return (int) ((RandomStreams.mix(seeds[row]) >>> 32) * bound >>> 32);
+    }
+
+    // Runs the row's strategy for one buy phase
+    private void buy(int row, Member member) {
+        switch (STRATEGIES[strategy[row]]) {
+            case MINIMALIST -> member.buyTicket(1, 1);
+            case RANDOM -> {
+                int howMany = nextInt(row, 100) + 1;
+                for (int i = 0; i < howMany; i++) {
+                    member.buyTicket(nextInt(row, 8) + 1, nextInt(row, 10) + 1);
+                }
+            }
+            case FIXED_FORM, FIXED_NUMBER -> {
+                // Only if the previous ticket has expired
+                if (held[row] == 0 || lastDraw[row] == Headquarters.getHeadquarters().getLotteriesCount() - howOftenBuys[row]) {
+                    member.buyTicket(howOftenBuys[row], form(row));
+                }
+            }
+        }
+    }
+
+    // Buy phase of every row, in row order
+    public void buyTickets() {
+        allOffices = null;
+        for (int row = 0; row < size; row++) {
+            buy(row, cursor(row));
+        }
+    }
+
+    // Check phase: redeems every held ticket whose draws have all taken place, in purchase order per draw
+    public void checkTickets() {
+        int drawn = Math.min(Headquarters.getHeadquarters().getLotteriesCount(), holdings.lastDraws() - 1);
+        for (int draw = 0; draw <= drawn; draw++) {
+            for (int slot = holdings.firstOfDraw(draw); slot != 0; slot = holdings.firstOfDraw(draw)) {
+                int row = holdings.owner(slot);
+                redeem(row, release(slot));
+            }
+        }
+    }
+
+    // Check phase of one row, visiting only the row's tickets
+    private void checkTickets(int row) {
+        int drawn = Headquarters.getHeadquarters().getLotteriesCount();
+        for (Ticket ticket : heldTickets(row)) {
+            if (ticket.getLastDraw() <= drawn) {
+                redeemTicket(row, ticket.getNumber());
+            }
+        }
+    }
+
+    // Redeems one ticket the row holds, by number, before or after its draws
+    private void redeemTicket(int row, int number) {
+        int slot = findSlot(row, number);
+        if (slot != 0) {
+            redeem(row, release(slot));
+        }
+    }
+
+    private void redeem(int row, Ticket ticket) {
+        Headquarters.getHeadquarters().getOffice(ticket.getOffice()).sprawdźKupon(ticket, cursor(row));
+    }
+
+    // Slot of the row's ticket with the number, 0 if the row does not hold it
+    private int findSlot(int row, int number) {
+        int head = rowHead[row];
+        if (head == 0) {
+            return 0;
+        }
+        int slot = head;
+        do {
+            if (holdings.ticket(slot).getNumber() == number) {
+                return slot;
+            }
+            slot = holdings.nextOfRow(slot);
+        } while (slot != head);
+        return 0;
+    }
+
+    // Records a ticket the row bought and charges it
+    private void hold(int row, Ticket ticket) {
+        holdings.add(row, ticket, rowHead);
+        held[row]++;
+        lastDraw[row] = Math.max(lastDraw[row], ticket.getLastDraw());
+        funds[row] -= ticket.getPrice();
+    }
+
+    // Takes the ticket out of the row's holdings
+    private Ticket release(int slot) {
+        int row = holdings.owner(slot);
+        held[row]--;
+        return holdings.remove(slot, rowHead);
+    }
+
+    // The row's tickets in purchase order
+    private List<Ticket> heldTickets(int row) {
+        List<Ticket> tickets = new ArrayList<>(held[row]);
+        int head = rowHead[row];
+        if (head != 0) {
+            int slot = head;
+            do {
+                tickets.add(holdings.ticket(slot));
+                slot = holdings.nextOfRow(slot);
+            } while (slot != head);
+        }
+        return tickets;
+    }
+
+    // Shared view for the internal phases; it is only passed to offices and ledgers, which do not
+    // keep the player, since the next row repoints it. Views given to callers come from get
+    private Member cursor(int row) {
+        if (cursor == null) {
+            cursor = new Member(row);
+        }
+        cursor.row = row;
+        return cursor;
+    }
+
+    // New Player view of the row; its balance, tickets and strategy are the row's
+    public Player get(int row) {
+        Objects.checkIndex(row, size);
+        return new Member(row);
+    }
+
+    public int size() {
+        return size;
+    }
+
+    public Strategy getStrategy(int row) {
+        return STRATEGIES[strategy[Objects.checkIndex(row, size)]];
+    }
+
+    public long getBalance(int row) {
+        return funds[Objects.checkIndex(row, size)];
+    }
+
+    // Row with the highest positive balance, -1 if there is none
+    public int richest() {
+        int richest = -1;
+        long max = 0;
+        for (int row = 0; row < size; row++) {
+            if (funds[row] > max) {
+                richest = row;
+                max = funds[row];
+            }
+        }
+        return richest;
+    }
+
+    /*
+     * Slots of held tickets, each on two circular doubly linked lists in purchase order: the tickets
+     * with the same last draw and the tickets of the same row. Slot 0 is unused, so 0 means none;
+     * freed slots are reused through a free list
+     */
+    private static final class Holdings {
+        private Ticket[] tickets = new Ticket[16];
+        private int[] owners = new int[16];
+        private int[] nextOfDraw = new int[16];
+        private int[] prevOfDraw = new int[16];
+        private int[] nextOfRow = new int[16]; // Also links the free list
+        private int[] prevOfRow = new int[16];
+        private int[] drawHead = new int[16]; // First slot by last draw
+        private int used = 1; // Slots ever used, slot 0 included
+        private int free; // First free slot, 0 for none
+
+        Ticket ticket(int slot) {
+            return tickets[slot];
+        }
+
+        int owner(int slot) {
+            return owners[slot];
+        }
+
+        int nextOfRow(int slot) {
+            return nextOfRow[slot];
+        }
+
+        int firstOfDraw(int draw) {
+            return draw < drawHead.length ? drawHead[draw] : 0;
+        }
+
+        // Draws up to which there can be tickets, exclusive
+        int lastDraws() {
+            return drawHead.length;
+        }
+
+        void add(int owner, Ticket ticket, int[] rowHead) {
+            int slot = free;
+            if (slot != 0) {
+                free = nextOfRow[slot];
+            } else {
+                if (used == tickets.length) {
+                    int capacity = used * 2;
+                    tickets = Arrays.copyOf(tickets, capacity);
+                    owners = Arrays.copyOf(owners, capacity);
+                    nextOfDraw = Arrays.copyOf(nextOfDraw, capacity);
+                    prevOfDraw = Arrays.copyOf(prevOfDraw, capacity);
+                    nextOfRow = Arrays.copyOf(nextOfRow, capacity);
+                    prevOfRow = Arrays.copyOf(prevOfRow, capacity);
+                }
+                slot = used++;
+            }
+
+            int draw = ticket.getLastDraw();
+            if (draw >= drawHead.length) {
+                drawHead = Arrays.copyOf(drawHead, Math.max(drawHead.length * 2, draw + 1));
+            }
+            tickets[slot] = ticket;
+            owners[slot] = owner;
+            drawHead[draw] = append(drawHead[draw], slot, nextOfDraw, prevOfDraw);
+            rowHead[owner] = append(rowHead[owner], slot, nextOfRow, prevOfRow);
+        }
+
+        Ticket remove(int slot, int[] rowHead) {
+            Ticket ticket = tickets[slot];
+            int draw = ticket.getLastDraw();
+            drawHead[draw] = unlink(drawHead[draw], slot, nextOfDraw, prevOfDraw);
+            rowHead[owners[slot]] = unlink(rowHead[owners[slot]], slot, nextOfRow, prevOfRow);
+
+            tickets[slot] = null;
+            nextOfRow[slot] = free;
+            free = slot;
+            return ticket;
+        }
+
+        // Appends the slot at the tail of the list with the head; returns the new head
+        private static int append(int head, int slot, int[] next, int[] prev) {
+            if (head == 0) {
+                next[slot] = slot;
+                prev[slot] = slot;
+                return slot;
+            }
+            int tail = prev[head];
+            next[tail] = slot;
+            prev[slot] = tail;
+            next[slot] = head;
+            prev[head] = slot;
+            return head;
+        }
+
+        // Removes the slot from the list with the head; returns the new head
+        private static int unlink(int head, int slot, int[] next, int[] prev) {
+            if (next[slot] == slot) {
+                return 0;
+            }
+            next[prev[slot]] = next[slot];
+            prev[next[slot]] = prev[slot];
+            return head == slot ? next[slot] : head;
+        }
+    }
+
+    // Player backed by a row; offices see an ordinary player. Every call goes to the row's columns,
+    // so views from get stay valid and any number of them may exist
+    private final class Member extends Player {
+        private int row;
+
+        Member(int row) {
+            super(names[name[row]], surnames[surname[row]], pesel[row], 0, null);
+            this.row = row;
+        }
+
+        @Override
+        protected int chooseCollectionOffice() {
+            return nextOffice(row);
+        }
+
+        @Override
+        public void buyTicket() {
+            buy(row, this);
+        }
+
+        @Override
+        protected void addTicket(Ticket ticket) {
+            if (ticket != null) {
+                hold(row, ticket);
+            }
+        }
+
+        @Override
+        public void checkTickets() {
+            Population.this.checkTickets(row);
+        }
+
+        @Override
+        public void redeemTicket(Ticket ticket) {
+            int slot = findSlot(row, ticket.getNumber());
+            if (slot != 0 && ticket.equals(holdings.ticket(slot))) {
+                redeem(row, release(slot));
+            }
+        }
+
+        @Override
+        public void redeemTicket(int numer) {
+            Population.this.redeemTicket(row, numer);
+        }
+
+        @Override
+        public void addFunds(long kwota) {
+            funds[row] += kwota;
+        }
+
+        @Override
+        public long getBalance() {
+            return funds[row];
+        }
+
+        @Override
+        protected Iterable<Ticket> heldTickets() {
+            return Population.this.heldTickets(row);
+        }
+    }
+}
@@ -7,10 +7,9 @@ import java.util.List;
 
 // Player picking everything at random
 public class Random extends Player {
-    private static final java.util.Random random = new java.util.Random();
-
     public Random(String name, String surname, int pesel) {
-        super(name, surname, pesel, random.nextInt(100000000));
+        super(name, surname, pesel, 0);
+        addFunds(random.nextInt(100000000));
     }
 
     @Override
@@ -27,10 +26,10 @@ public class Random extends Player {
 
     @Override
     public void buyTicket() {
-        int random = Random.random.nextInt(100) + 1;
+        int howMany = random.nextInt(100) + 1;
 
-        for (int i = 0; i < random; i++) {
-            buyTicket(Random.random.nextInt(8) + 1, Random.random.nextInt(10) + 1);
+        for (int i = 0; i < howMany; i++) {
+            buyTicket(random.nextInt(8) + 1, random.nextInt(10) + 1);
         }
     }
 }
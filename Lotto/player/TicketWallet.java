@@ -0,0 +1,72 @@
+package player;
+
+import ticket.Ticket;
+
+import java.util.*;
+
+/**
+ * Player's tickets indexed by ticket number and by the number of their last draw.
+ * Lookups and removals by number are O(1), queries by last draw are O(log n),
+ * so post-draw checks only visit the tickets that have just expired.
+ * Not thread-safe on its own; the owning player only uses it while holding its own lock.
+ */
+public class TicketWallet implements Iterable<Ticket> {
+    private final Map<Integer, Ticket> byNumber = new LinkedHashMap<>(); // In purchase order
+    private final TreeMap<Integer, Map<Integer, Ticket>> byLastDraw = new TreeMap<>(); // Last draw -> tickets by number
+
+    public void add(Ticket ticket) {
+        byNumber.put(ticket.getNumber(), ticket);
+        byLastDraw.computeIfAbsent(ticket.getLastDraw(), k -> new HashMap<>()).put(ticket.getNumber(), ticket);
+    }
+
+    public boolean contains(Ticket ticket) {
+        Ticket held = byNumber.get(ticket.getNumber());
+        return held != null && held.equals(ticket);
+    }
+
+    // Returns the ticket with the given number or null if the player does not hold it
+    public Ticket get(int number) {
+        return byNumber.get(number);
+    }
+
+    public boolean remove(Ticket ticket) {
+        if (!contains(ticket)) {
+            return false;
+        }
+
+        byNumber.remove(ticket.getNumber());
+        Map<Integer, Ticket> bucket = byLastDraw.get(ticket.getLastDraw());
+        bucket.remove(ticket.getNumber());
+        if (bucket.isEmpty()) {
+            byLastDraw.remove(ticket.getLastDraw());
+        }
+        return true;
+    }
+
+    // Tickets whose last draw is not after the given one; a copy, so they can be redeemed while iterating
+    public List<Ticket> expiredBy(int drawNumber) {
+        List<Ticket> expired = new ArrayList<>();
+        for (Map<Integer, Ticket> bucket : byLastDraw.headMap(drawNumber, true).values()) {
+            expired.addAll(bucket.values());
+        }
+        return expired;
+    }
+
+    // Latest last draw among held tickets, 0 if the wallet is empty
+    public int latestLastDraw() {
+        return byLastDraw.isEmpty() ? 0 : byLastDraw.lastKey();
+    }
+
+    public boolean isEmpty() {
+        return byNumber.isEmpty();
+    }
+
+    public int size() {
+        return byNumber.size();
+    }
+
+    @Override
+    public Iterator<Ticket> iterator() {
+        return Collections.unmodifiableCollection(byNumber.values()).iterator();
+    }
+}
@@ -0,0 +1,56 @@
+package report;
+
+import institutions.DrawSummary;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * Compact big-endian report: a header with the magic "LOTR", a format version and the
+ * number of tiers and winning numbers, then one fixed-size record per draw:
+ * int draw, one byte per winning number, long bets, int winners per tier,
+ * long pool and long amount per tier, long jackpot, funds, taxes and subsidies.
+ */
+public class BinaryReportWriter extends DrawReportWriter {
+    public static final int MAGIC = 0x4C4F5452; // "LOTR"
+    public static final short VERSION = 1;
+    private static final int TIERS = 4;
+    private static final int NUMBERS = 6;
+    public static final int RECORD_SIZE = Integer.BYTES + NUMBERS + Long.BYTES
+            + TIERS * (Integer.BYTES + 2 * Long.BYTES) + 4 * Long.BYTES;
+
+    public BinaryReportWriter(Path path) throws IOException {
+        this(path, 1);
+    }
+
+    // Writes the file every flushEvery draws
+    public BinaryReportWriter(Path path, int flushEvery) throws IOException {
+        super(path, flushEvery);
+        buffer.putInt(MAGIC).putShort(VERSION).put((byte) TIERS).put((byte) NUMBERS);
+    }
+
+    @Override
+    protected int maxRecordSize(DrawSummary draw) {
+        if (draw.numberOfTiers() != TIERS || draw.numberOfWinningNumbers() != NUMBERS) {
+            throw new IllegalArgumentException("Report: draw does not fit the binary record layout.");
+        }
+        return RECORD_SIZE;
+    }
+
+    @Override
+    protected void encode(DrawSummary draw, long jackpot, long funds, long taxes, long subsidies) {
+        buffer.putInt(draw.getNumber());
+        for (int i = 0; i < NUMBERS; i++) {
+            buffer.put((byte) draw.getWinningNumber(i));
+        }
+        buffer.putLong(draw.getNumberOfBets());
+
+        for (int tier = 0; tier < TIERS; tier++) {
+            buffer.putInt(draw.getWinners(tier));
+        }
+        for (int tier = 0; tier < TIERS; tier++) {
+            buffer.putLong(draw.getPrizePool(tier)).putLong(draw.getPrizeAmount(tier));
+        }
+        buffer.putLong(jackpot).putLong(funds).putLong(taxes).putLong(subsidies);
+    }
+}
@@ -0,0 +1,70 @@
+package report;
+
+import institutions.DrawSummary;
+import institutions.Headquarters;
+
+import java.io.IOException;
+import java.nio.file.Path;
+
+/**
+ * One CSV line per draw: draw number, winning numbers separated by spaces, bets,
+ * winning bets, pools and amounts per tier, then jackpot, funds, taxes and subsidies.
+ * Amounts are in grosz.
+ */
+public class CsvReportWriter extends DrawReportWriter {
+    private static final int MAX_NUMBER_LENGTH = 20; // Digits and sign of a long
+
+    public CsvReportWriter(Path path) throws IOException {
+        this(path, 1);
+    }
+
+    // Writes the file every flushEvery draws
+    public CsvReportWriter(Path path, int flushEvery) throws IOException {
+        super(path, flushEvery);
+        StringBuilder header = new StringBuilder("draw,numbers,bets");
+        for (String column : new String[]{"winners", "pool", "amount"}) {
+            for (int tier = 1; tier <= Headquarters.getHeadquarters().getGame().numberOfTiers(); tier++) {
+                header.append(',').append(column).append(tier);
+            }
+        }
+        header.append(",jackpot,funds,taxes,subsidies\n");
+        putAscii(header.toString());
+    }
+
+    @Override
+    protected int maxRecordSize(DrawSummary draw) {
+        int fields = 2 + draw.numberOfWinningNumbers() + 3 * draw.numberOfTiers() + 4;
+        return fields * (MAX_NUMBER_LENGTH + 1);
+    }
+
+    @Override
+    protected void encode(DrawSummary draw, long jackpot, long funds, long taxes, long subsidies) {
+        putDecimal(draw.getNumber());
+        buffer.put((byte) ',');
+        for (int i = 0; i < draw.numberOfWinningNumbers(); i++) {
+            if (i > 0) buffer.put((byte) ' ');
+            putDecimal(draw.getWinningNumber(i));
+        }
+        buffer.put((byte) ',');
+        putDecimal(draw.getNumberOfBets());
+
+        for (int tier = 0; tier < draw.numberOfTiers(); tier++) {
+            buffer.put((byte) ',');
+            putDecimal(draw.getWinners(tier));
+        }
+        for (int tier = 0; tier < draw.numberOfTiers(); tier++) {
+            buffer.put((byte) ',');
+            putDecimal(draw.getPrizePool(tier));
+        }
+        for (int tier = 0; tier < draw.numberOfTiers(); tier++) {
+            buffer.put((byte) ',');
+            putDecimal(draw.getPrizeAmount(tier));
+        }
+
+        for (long total : new long[]{jackpot, funds, taxes, subsidies}) {
+            buffer.put((byte) ',');
+            putDecimal(total);
+        }
+        buffer.put((byte) '\n');
+    }
+}
@@ -0,0 +1,115 @@
+package report;
+
+import institutions.*;
+
+import java.io.Closeable;
+import java.io.IOException;
+import java.io.UncheckedIOException;
+import java.nio.ByteBuffer;
+import java.nio.channels.FileChannel;
+import java.nio.file.Path;
+import java.nio.file.StandardOpenOption;
+
+/**
+ * Streams draw results to a file as the draws complete.
+ * Records are encoded straight into a direct buffer, so a report costs no string formatting.
+ * The buffer goes to the file channel every flushEvery draws (every draw by default), so the
+ * file stays in step with the draws, and earlier if a record would not fit.
+ * Register with Headquarters.addDrawListener and close when the simulation ends.
+ */
+public abstract class DrawReportWriter implements DrawListener, Closeable {
+    private static final int BUFFER_SIZE = 1 << 16;
+
+    private final FileChannel channel;
+    protected final ByteBuffer buffer = ByteBuffer.allocateDirect(BUFFER_SIZE);
+    private final byte[] digits = new byte[20]; // Scratch space for decimal numbers
+    private final int flushEvery; // Draws buffered before they are written out
+    private int unflushedDraws; // Draws in the buffer
+
+    protected DrawReportWriter(Path path, int flushEvery) throws IOException {
+        if (flushEvery < 1) {
+            throw new IllegalArgumentException("Report: flush interval must be > 0");
+        }
+
+        this.flushEvery = flushEvery;
+        this.channel = FileChannel.open(path, StandardOpenOption.CREATE,
+                StandardOpenOption.TRUNCATE_EXISTING, StandardOpenOption.WRITE);
+    }
+
+    // Writes one draw with the state budget and Headquarters totals at the moment it completed
+    @Override
+    public synchronized void drawCompleted(DrawSummary draw) {
+        Headquarters headquarters = Headquarters.getHeadquarters();
+        StateBudget budget = StateBudget.getBudget();
+
+        try {
+            ensureCapacity(maxRecordSize(draw));
+            encode(draw, headquarters.getJackpot(), headquarters.getFunds(), budget.getTaxSum(), budget.getSubsidySum());
+            if (++unflushedDraws >= flushEvery) {
+                flush();
+            }
+        } catch (IOException e) {
+            throw new UncheckedIOException("Report: cannot write draw " + draw.getNumber(), e);
+        }
+    }
+
+    // Upper bound of the encoded size of one record, in bytes
+    protected abstract int maxRecordSize(DrawSummary draw);
+
+    // Encodes one record into the buffer, which has at least maxRecordSize bytes left
+    protected abstract void encode(DrawSummary draw, long jackpot, long funds, long taxes, long subsidies);
+
+    // Makes room in the buffer, flushing it to the channel if needed
+    protected void ensureCapacity(int bytes) throws IOException {
+        if (buffer.remaining() < bytes) {
+            flush();
+        }
+    }
+
+    // Writes the buffered records to the file
+    public synchronized void flush() throws IOException {
+        buffer.flip();
+        while (buffer.hasRemaining()) {
+            channel.write(buffer);
+        }
+        buffer.clear();
+        unflushedDraws = 0;
+    }
+
+    @Override
+    public synchronized void close() throws IOException {
+        try {
+            flush();
+        } finally {
+            channel.close();
+        }
+    }
+
+    // Puts a number as ASCII decimal digits, without going through a String
+    protected void putDecimal(long value) {
+        if (value < 0) {
+            buffer.put((byte) '-');
+            if (value == Long.MIN_VALUE) {
+                putAscii("9223372036854775808");
+                return;
+            }
+            value = -value;
+        }
+
+        int length = 0;
+        do {
+            digits[length++] = (byte) ('0' + value % 10);
+            value /= 10;
+        } while (value > 0);
+
+        while (length > 0) {
+            buffer.put(digits[--length]);
+        }
+    }
+
+    protected void putAscii(String text) {
+        for (int i = 0; i < text.length(); i++) {
+            buffer.put((byte) text.charAt(i));
+        }
+    }
+}
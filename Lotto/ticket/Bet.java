@@ -1,22 +1,44 @@
 package ticket;
 
+import institutions.Headquarters;
+
 import java.util.Arrays;
 
-//Helper class that stores a properly filled ticket bet — always contains 6 numbers within the valid range.
+//Helper class that stores a properly filled ticket bet — always contains the game's count of numbers within the valid range.
 public class Bet {
     private final int[] numbers;
 
     public Bet(int[] numbers) {
-        if (numbers.length != 6) {
-            throw new IllegalArgumentException("Invalid number of bet numbers: " + numbers.length + ". Expected 6.");
+        int picks = Headquarters.getHeadquarters().getGame().getPicks();
+        if (numbers.length != picks) {
+            throw new IllegalArgumentException("Invalid number of bet numbers: " + numbers.length + ". Expected " + picks + ".");
         }
         this.numbers = numbers;
     }
 
+    // Single number without copying the array
+    public int getNumber(int i) {
+        return numbers[i];
+    }
+
     public int[] getNumbers() {
         return Arrays.copyOf(numbers, numbers.length);
     }
 
+    // Packs the bet into a bit mask (bit n set for number n), for fast hit counting
+    public long toMask() {
+        long mask = 0;
+        for (int number : numbers) {
+            mask |= 1L << number;
+        }
+        return mask;
+    }
+
+    // Packs the bet into words of 64 numbers, for games with ranges beyond a single long
+    public long[] toMaskWords() {
+        return Headquarters.getHeadquarters().getGame().maskWords(numbers);
+    }
+
     @Override
     public String toString() {
         StringBuilder sb = new StringBuilder();
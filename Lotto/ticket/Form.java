@@ -1,9 +1,12 @@
 package ticket;
 
-import institutions.Lottery;
+import institutions.Game;
+import institutions.Headquarters;
 import exceptions.IllegalArgument;
 
 import java.util.*;
+import java.util.concurrent.ThreadLocalRandom;
+import java.util.random.RandomGenerator;
 
 /**
  * Represents a lottery form (blank) used to create tickets.
@@ -24,13 +27,18 @@ public class Form {
         this.correctBets = setValidBets(originalForm);
     }
 
-    // Constructor with random bets
+    // Constructor with random bets; not reproducible, see RandomStreams
     public Form(int numberOfBets, int numberOfDraws) {
+        this(numberOfBets, numberOfDraws, ThreadLocalRandom.current());
+    }
+
+    // Constructor with random bets drawn from the given stream
+    public Form(int numberOfBets, int numberOfDraws, RandomGenerator random) {
         if (numberOfBets < 1 || numberOfDraws < 0) {
             throw new IllegalArgument("Form: number of bets and draws must be > 0");
         }
         this.numberOfDraws = (numberOfDraws == 0) ? 1 : numberOfDraws;
-        this.originalForm = setRandom(numberOfBets);
+        this.originalForm = setRandom(numberOfBets, random);
         this.correctBets = setValidBets(originalForm);
     }
 
@@ -49,11 +57,27 @@ public class Form {
         this.correctBets = setValidBets(numbers);
     }
 
+    // Constructor for bets already validated by the binary codec
+    private Form(int numberOfDraws, int[][] validBets) {
+        this.numberOfDraws = numberOfDraws;
+        this.originalForm = validBets;
+        this.correctBets = new ArrayList<>(validBets.length);
+        for (int[] bet : validBets) {
+            correctBets.add(new Bet(bet));
+        }
+    }
+
+    // Blank rebuilt from decoded bets, skipping the validation the codec has already done
+    static Form decoded(int[][] validBets, int numberOfDraws) {
+        return new Form(numberOfDraws, validBets);
+    }
+
     // Generate random bets
-    private int[][] setRandom(int numberOfBet) {
+    private int[][] setRandom(int numberOfBet, RandomGenerator random) {
+        Game game = Headquarters.getHeadquarters().getGame();
         int[][] form = new int[numberOfBet][];
         for (int i = 0; i < numberOfBet; i++) {
-            form[i] = Lottery.generateNumbers();
+            form[i] = game.drawNumbers(random);
         }
         return form;
     }
@@ -68,25 +92,24 @@ public class Form {
         return numberOfDraws;
     }
 
+    // Single valid bet without wrapping the list
+    Bet getCorrectBet(int i) {
+        return correctBets.get(i);
+    }
+
     // Returns a list of valid bets (read-only)
     public List<Bet> getCorrectBets() {
         return Collections.unmodifiableList(correctBets);
     }
 
-    // Filter and set valid bets
+    // Filter and set valid bets, by the rules of the current game
     private ArrayList<Bet> setValidBets(int[][] numbers) {
         if (numbers == null || numbers.length == 0) return new ArrayList<>();
         ArrayList<Bet> correctForm = new ArrayList<>();
+        Game game = Headquarters.getHeadquarters().getGame();
 
         for (int[] i : numbers) {
-            if (i.length == 6) {
-                Set<Integer> set = new HashSet<>();
-                boolean correct = true;
-                for (int j : i) {
-                    if (!set.add(j) || j < 1 || j > 49) correct = false;
-                }
-                if (correct && set.size() == 6) correctForm.add(new Bet(i));
-            }
+            if (game.isValidBet(i)) correctForm.add(new Bet(i));
         }
         return correctForm;
     }
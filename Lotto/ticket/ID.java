@@ -32,8 +32,24 @@ public class ID {
         this.checkDigit = generateCheckDigit(); // Compute check digit
     }
 
+    public int getTicketNumber() {
+        return ticketNumber;
+    }
+
+    public int getNumberOfOffice() {
+        return numberOfOffice;
+    }
+
+    public int getIndex() {
+        return index;
+    }
+
+    public int getCheckDigit() {
+        return checkDigit;
+    }
+
     // Computes the sum of digits of a given number
-    private int digitSum(int number) {
+    private static int digitSum(int number) {
         int sum = 0;
         while (number > 0) {
             sum += number % 10;
@@ -44,10 +60,29 @@ public class ID {
 
     // Generates the check digit as a sum of digits of ticket, collection, and marker modulo 100
     private int generateCheckDigit() {
+        return checkDigit(ticketNumber, numberOfOffice, index);
+    }
+
+    // Check digit for the given fields, lets printed identifiers be validated without building an ID
+    public static int checkDigit(int ticketNumber, int numberOfOffice, int index) {
         int number = digitSum(ticketNumber) + digitSum(numberOfOffice) + digitSum(index);
         return number % 100;
     }
 
+    // Packs the collection number and marker into one long; together with the ticket number it identifies the ID
+    public static long packOfficeMarker(int numberOfOffice, int index) {
+        return (long) numberOfOffice << 31 | index;
+    }
+
+    public long packOfficeMarker() {
+        return packOfficeMarker(numberOfOffice, index);
+    }
+
+    // 64-bit fingerprint of all identifier fields, used by the offices' membership filters
+    public long fingerprint() {
+        return ((long) ticketNumber << 32 | index) ^ (numberOfOffice * 0x9E3779B97F4A7C15L);
+    }
+
     // Returns the string representation of the identifier in the format: ticket-collection-marker-check
     @Override
     public String toString() {
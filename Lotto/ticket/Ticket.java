@@ -15,8 +15,13 @@ public class Ticket implements Comparable<Ticket> {
     private final Form form; // Associated blank with bets
     private final List<Integer> numberOfDraws; // Draw numbers for this ticket
 
-    // Constructor for a new ticket
+    // Constructor for a new ticket, starting with the draw sales currently go to
     public Ticket(int office, int number, Form form) {
+        this(office, number, Headquarters.getHeadquarters().getSalesDraw(), form);
+    }
+
+    // Constructor for a new ticket starting with the given draw
+    public Ticket(int office, int number, int firstDraw, Form form) {
         if (office < 1 || !Headquarters.getHeadquarters().getOfficeNumber().contains(office)) {
             throw new IllegalArgument("Ticket: number exceeds limit (" + office + ").");
         }
@@ -27,23 +32,39 @@ public class Ticket implements Comparable<Ticket> {
         this.office = office;
         this.number = number;
         this.form = form;
-        this.numberOfDraws = setNumberOfDraws(form.howManyDraws());
+        if (firstDraw < 1) {
+            throw new IllegalArgument("Ticket: first draw must be > 0");
+        }
+        this.numberOfDraws = setNumberOfDraws(firstDraw, form.howManyDraws());
 
-        // Generate random marker for the identifier
-        Random random = new Random();
-        int index = random.nextInt(0, 1_000_000_000);
+        // Random marker for the identifier, from the ticket's own stream
+        int index = RandomStreams.stream(RandomStreams.Domain.TICKET, number).nextInt(0, 1_000_000_000);
         this.ID = new ID(number, office, index);
     }
 
-    // Set draw numbers based on the number of draws
-    private LinkedList<Integer> setNumberOfDraws(int numberOfDraws) {
+    // Constructor for a decoded ticket: identifier, draws and blank exactly as they were issued
+    Ticket(ID id, int firstDraw, Form form) {
+        if (form == null || form.numberOfCorrectBets() == 0) {
+            throw new IllegalArgument("Ticket: incorrect form.");
+        }
+        if (firstDraw < 1) {
+            throw new IllegalArgument("Ticket: first draw must be > 0");
+        }
+
+        this.office = id.getNumberOfOffice();
+        this.number = id.getTicketNumber();
+        this.form = form;
+        this.numberOfDraws = setNumberOfDraws(firstDraw, form.howManyDraws());
+        this.ID = id;
+    }
+
+    // Set draw numbers based on the first draw and the number of draws
+    private static LinkedList<Integer> setNumberOfDraws(int firstDraw, int numberOfDraws) {
         if (numberOfDraws > 10) {
             throw new IllegalArgument("Exceeded draw limit(10)");
         }
 
         LinkedList<Integer> numbers = new LinkedList<>();
-        int firstDraw = Headquarters.getHeadquarters().getLotteriesCount() + 1; // First available draw
-
         for (int i = 0; i < numberOfDraws; i++) {
             numbers.add(firstDraw + i); // Add consecutive draw numbers
         }
@@ -56,11 +77,25 @@ public class Ticket implements Comparable<Ticket> {
         return this.ID.toString();
     }
 
+    public ID getId() {
+        return ID;
+    }
+
     // Returns a copy of the draw numbers
     public List<Integer> getDrawNumbers() {
         return new ArrayList<>(numberOfDraws);
     }
 
+    // Returns the number of the first draw the ticket takes part in
+    public int getFirstDraw() {
+        return numberOfDraws.get(0);
+    }
+
+    // Returns the number of the last draw the ticket takes part in
+    public int getLastDraw() {
+        return numberOfDraws.get(numberOfDraws.size() - 1);
+    }
+
     // Returns the total price of the ticket
     public long getPrice() {
         return Headquarters.getBetPrice() * form.numberOfCorrectBets() * form.howManyDraws();
@@ -80,6 +115,20 @@ public class Ticket implements Comparable<Ticket> {
         return List.copyOf(form.getCorrectBets());
     }
 
+    public int numberOfBets() {
+        return form.numberOfCorrectBets();
+    }
+
+    // Bit mask of the i-th valid bet, without copying the bets
+    public long getBetMask(int i) {
+        return form.getCorrectBet(i).toMask();
+    }
+
+    // The blank itself, for the binary codec
+    Form getForm() {
+        return form;
+    }
+
     public int getOffice() {
         return office;
     }
@@ -99,9 +148,9 @@ public class Ticket implements Comparable<Ticket> {
         sb.append("NUMBER OF DRAWS: ").append(form.howManyDraws()).append("\n");
         sb.append("DRAWS NUMBERS:\n");
 
-        // Show draw numbers
-        for (int i = 0; i < form.howManyDraws(); i++) {
-            sb.append(" ").append(i + 1 + Headquarters.getHeadquarters().getLotteriesCount());
+        // Show the ticket's own draw numbers
+        for (int draw : numberOfDraws) {
+            sb.append(" ").append(draw);
         }
 
         sb.append("\nPRICE: ");
@@ -0,0 +1,152 @@
+package ticket;
+
+import exceptions.IllegalArgument;
+import institutions.Game;
+import institutions.Headquarters;
+
+import java.nio.ByteBuffer;
+import java.util.ArrayList;
+import java.util.Arrays;
+import java.util.List;
+
+/**
+ * Fixed-layout binary encoding of tickets and their parts, read and written directly on ByteBuffers
+ * (in the buffer's byte order). Layouts:
+ * ID     - int ticket number, int office, int marker, byte check digit (13 bytes)
+ * Bet    - one byte per number of the game, in the order they were filled in
+ * Form   - byte number of draws, byte number of bets, then the bets
+ * Ticket - ID, int first draw, Form (at most 13 + 4 + 2 + 8 * 6 bytes for 6-of-49)
+ * Batch  - int number of tickets, then the tickets
+ * Readers validate everything a constructor would, so a corrupt buffer is rejected, never half-read into a ticket.
+ */
+public final class TicketCodec {
+    public static final int ID_SIZE = 3 * Integer.BYTES + 1;
+    public static final int MAX_BET_SIZE = 32; // Largest bet the layout is sized for
+    public static final int MAX_BETS = 8;
+    public static final int MAX_DRAWS = 10;
+    public static final int MAX_TICKET_SIZE = ID_SIZE + Integer.BYTES + 2 + MAX_BETS * MAX_BET_SIZE;
+
+    private TicketCodec() {
+    }
+
+    public static void writeId(ByteBuffer buffer, ID id) {
+        buffer.putInt(id.getTicketNumber())
+                .putInt(id.getNumberOfOffice())
+                .putInt(id.getIndex())
+                .put((byte) id.getCheckDigit());
+    }
+
+    public static ID readId(ByteBuffer buffer) {
+        int ticketNumber = buffer.getInt();
+        int office = buffer.getInt();
+        int index = buffer.getInt();
+        int checkDigit = buffer.get();
+
+        if (ticketNumber < 1 || office < 1 || index < 0) {
+            throw new IllegalArgument("Codec: corrupt identifier " + ticketNumber + "-" + office + "-" + index + ".");
+        }
+        if (ID.checkDigit(ticketNumber, office, index) != checkDigit) {
+            throw new IllegalArgument("Codec: wrong check digit of ticket " + ticketNumber + ".");
+        }
+        return new ID(ticketNumber, office, index);
+    }
+
+    // Bytes of a bet of the current game
+    public static int betSize() {
+        return Headquarters.getHeadquarters().getGame().getPicks();
+    }
+
+    public static void writeBet(ByteBuffer buffer, Bet bet) {
+        int size = betSize();
+        for (int i = 0; i < size; i++) {
+            buffer.put((byte) bet.getNumber(i));
+        }
+    }
+
+    public static Bet readBet(ByteBuffer buffer) {
+        return new Bet(readBetNumbers(buffer));
+    }
+
+    // Reads the numbers of a bet and checks them against the game, like Form does
+    private static int[] readBetNumbers(ByteBuffer buffer) {
+        Game game = Headquarters.getHeadquarters().getGame();
+        int[] numbers = new int[game.getPicks()];
+        for (int i = 0; i < numbers.length; i++) {
+            numbers[i] = buffer.get() & 0xFF;
+        }
+        if (!game.isValidBet(numbers)) {
+            throw new IllegalArgument("Codec: corrupt bet " + Arrays.toString(numbers) + ".");
+        }
+        return numbers;
+    }
+
+    // Only the valid bets of the form are written
+    public static void writeForm(ByteBuffer buffer, Form form) {
+        int count = form.numberOfCorrectBets();
+        buffer.put((byte) form.howManyDraws()).put((byte) count);
+        for (int i = 0; i < count; i++) {
+            writeBet(buffer, form.getCorrectBet(i));
+        }
+    }
+
+    public static Form readForm(ByteBuffer buffer) {
+        int draws = buffer.get();
+        int count = buffer.get();
+        if (draws < 1 || draws > MAX_DRAWS || count < 1 || count > MAX_BETS) {
+            throw new IllegalArgument("Codec: corrupt form (" + count + " bets, " + draws + " draws).");
+        }
+
+        int[][] bets = new int[count][];
+        for (int i = 0; i < count; i++) {
+            bets[i] = readBetNumbers(buffer);
+        }
+        return Form.decoded(bets, draws);
+    }
+
+    public static int encodedSize(Ticket ticket) {
+        return ID_SIZE + Integer.BYTES + 2 + ticket.getForm().numberOfCorrectBets() * betSize();
+    }
+
+    public static void writeTicket(ByteBuffer buffer, Ticket ticket) {
+        writeId(buffer, ticket.getId());
+        buffer.putInt(ticket.getFirstDraw());
+        writeForm(buffer, ticket.getForm());
+    }
+
+    public static Ticket readTicket(ByteBuffer buffer) {
+        ID id = readId(buffer);
+        int firstDraw = buffer.getInt();
+        return new Ticket(id, firstDraw, readForm(buffer));
+    }
+
+    // Writes as many tickets as fit, starting at the given index; returns the index of the first one not written
+    // (from itself, with nothing written, if not even the batch size fits)
+    public static int writeTickets(ByteBuffer buffer, List<Ticket> tickets, int from) {
+        if (buffer.remaining() < Integer.BYTES) {
+            return from;
+        }
+
+        int countPosition = buffer.position();
+        buffer.putInt(0);
+
+        int i = from;
+        while (i < tickets.size() && buffer.remaining() >= encodedSize(tickets.get(i))) {
+            writeTicket(buffer, tickets.get(i++));
+        }
+        buffer.putInt(countPosition, i - from);
+        return i;
+    }
+
+    public static List<Ticket> readTickets(ByteBuffer buffer) {
+        int count = buffer.getInt();
+        if (count < 0) {
+            throw new IllegalArgument("Codec: corrupt batch size " + count + ".");
+        }
+
+        List<Ticket> tickets = new ArrayList<>(count);
+        for (int i = 0; i < count; i++) {
+            tickets.add(readTicket(buffer));
+        }
+        return tickets;
+    }
+}
@@ -0,0 +1,417 @@
+package ticket;
+
+import java.util.Arrays;
+import java.util.NoSuchElementException;
+import java.util.PrimitiveIterator;
+import java.util.function.IntConsumer;
+
+/**
+ * Compressed set of ticket numbers, in the style of Roaring bitmaps.
+ * Numbers are split by their upper 16 bits into chunks of 65536; a chunk holding up to 4096
+ * numbers is a sorted array of their lower 16 bits (2 bytes each), a denser one a 65536-bit
+ * bitmap (8 KB). Since ticket numbers come from a dense counter, a set costs a few bytes per
+ * ticket at most, against tens of bytes for a boxed entry in a hash map.
+ * Not thread-safe; owners synchronize access themselves.
+ */
+public class TicketSet implements Iterable<Integer> {
+    private static final int ARRAY_LIMIT = 4096; // Largest array chunk
+    private static final int BITMAP_WORDS = 1 << 10; // 65536 bits
+
+    private int[] keys = new int[4]; // Upper 16 bits of the chunks, sorted
+    private Chunk[] chunks = new Chunk[4];
+    private int size; // Number of chunks
+    private int cardinality; // Number of tickets
+
+    // Adds the ticket number; false if it was already in the set
+    public boolean add(int number) {
+        if (number < 0) {
+            throw new IllegalArgumentException("TicketSet: negative ticket number " + number + ".");
+        }
+
+        int i = find(number >>> 16);
+        if (i < 0) {
+            i = -i - 1;
+            insertChunk(i, number >>> 16, new ArrayChunk());
+        }
+        if (!chunks[i].add((char) number)) {
+            return false;
+        }
+        if (chunks[i] instanceof ArrayChunk array && array.size > ARRAY_LIMIT) {
+            chunks[i] = array.toBitmap();
+        }
+        cardinality++;
+        return true;
+    }
+
+    // Removes the ticket number; false if it was not in the set
+    public boolean remove(int number) {
+        int i = number < 0 ? -1 : find(number >>> 16);
+        if (i < 0 || !chunks[i].remove((char) number)) {
+            return false;
+        }
+
+        Chunk chunk = chunks[i];
+        if (chunk.cardinality() == 0) {
+            removeChunk(i);
+        } else if (chunk instanceof BitmapChunk bitmap && bitmap.cardinality <= ARRAY_LIMIT) {
+            chunks[i] = bitmap.toArray();
+        }
+        cardinality--;
+        return true;
+    }
+
+    public boolean contains(int number) {
+        int i = number < 0 ? -1 : find(number >>> 16);
+        return i >= 0 && chunks[i].contains((char) number);
+    }
+
+    public int cardinality() {
+        return cardinality;
+    }
+
+    public boolean isEmpty() {
+        return cardinality == 0;
+    }
+
+    // Adds all ticket numbers of the other set
+    public void addAll(TicketSet other) {
+        for (int j = 0; j < other.size; j++) {
+            int i = find(other.keys[j]);
+            if (i < 0) {
+                insertChunk(-i - 1, other.keys[j], other.chunks[j].copy());
+                cardinality += other.chunks[j].cardinality();
+                continue;
+            }
+
+            int before = chunks[i].cardinality();
+            chunks[i] = chunks[i].or(other.chunks[j]);
+            cardinality += chunks[i].cardinality() - before;
+        }
+    }
+
+    // New set with the ticket numbers of both sets
+    public static TicketSet union(TicketSet a, TicketSet b) {
+        TicketSet union = new TicketSet();
+        union.addAll(a);
+        union.addAll(b);
+        return union;
+    }
+
+    // Visits the ticket numbers in ascending order, without boxing
+    public void forEachNumber(IntConsumer action) {
+        for (int i = 0; i < size; i++) {
+            chunks[i].forEach(keys[i] << 16, action);
+        }
+    }
+
+    // Ticket numbers in ascending order
+    public int[] toArray() {
+        int[] numbers = new int[cardinality];
+        int[] next = {0};
+        forEachNumber(number -> numbers[next[0]++] = number);
+        return numbers;
+    }
+
+    @Override
+    public PrimitiveIterator.OfInt iterator() {
+        return new PrimitiveIterator.OfInt() {
+            private int chunk; // Chunk of the next number
+            private int low = -1; // Lower 16 bits of the last number returned in the chunk
+            private int next = advance();
+
+            private int advance() {
+                while (chunk < size) {
+                    int found = chunks[chunk].nextFrom(low + 1);
+                    if (found >= 0) {
+                        low = found;
+                        return keys[chunk] << 16 | found;
+                    }
+                    chunk++;
+                    low = -1;
+                }
+                return -1;
+            }
+
+            @Override
+            public boolean hasNext() {
+                return next >= 0;
+            }
+
+            @Override
+            public int nextInt() {
+                if (next < 0) {
+                    throw new NoSuchElementException();
+                }
+                int number = next;
+                next = advance();
+                return number;
+            }
+        };
+    }
+
+    // Approximate memory taken by the set, in bytes
+    public long sizeInBytes() {
+        long bytes = 16 + 2 * 16 + (long) keys.length * Integer.BYTES + (long) chunks.length * 4;
+        for (int i = 0; i < size; i++) {
+            bytes += chunks[i].sizeInBytes();
+        }
+        return bytes;
+    }
+
+    private int find(int key) {
+        return Arrays.binarySearch(keys, 0, size, key);
+    }
+
+    private void insertChunk(int i, int key, Chunk chunk) {
+        if (size == keys.length) {
+            keys = Arrays.copyOf(keys, size * 2);
+            chunks = Arrays.copyOf(chunks, size * 2);
+        }
+        System.arraycopy(keys, i, keys, i + 1, size - i);
+        System.arraycopy(chunks, i, chunks, i + 1, size - i);
+        keys[i] = key;
+        chunks[i] = chunk;
+        size++;
+    }
+
+    private void removeChunk(int i) {
+        System.arraycopy(keys, i + 1, keys, i, size - i - 1);
+        System.arraycopy(chunks, i + 1, chunks, i, size - i - 1);
+        chunks[--size] = null;
+    }
+
+    // Lower 16 bits of the numbers in one chunk
+    private abstract static class Chunk {
+        abstract boolean add(char low);
+
+        abstract boolean remove(char low);
+
+        abstract boolean contains(char low);
+
+        abstract int cardinality();
+
+        // Smallest number >= from in the chunk, or -1
+        abstract int nextFrom(int from);
+
+        abstract void forEach(int high, IntConsumer action);
+
+        // Union with another chunk; may return a new chunk of the other kind
+        abstract Chunk or(Chunk other);
+
+        abstract Chunk copy();
+
+        abstract long sizeInBytes();
+    }
+
+    // Sorted array of up to ARRAY_LIMIT numbers
+    private static final class ArrayChunk extends Chunk {
+        private char[] values = new char[4];
+        private int size;
+
+        @Override
+        boolean add(char low) {
+            int i = Arrays.binarySearch(values, 0, size, low);
+            if (i >= 0) {
+                return false;
+            }
+
+            i = -i - 1;
+            if (size == values.length) {
+                values = Arrays.copyOf(values, size * 2);
+            }
+            System.arraycopy(values, i, values, i + 1, size - i);
+            values[i] = low;
+            size++;
+            return true;
+        }
+
+        @Override
+        boolean remove(char low) {
+            int i = Arrays.binarySearch(values, 0, size, low);
+            if (i < 0) {
+                return false;
+            }
+            System.arraycopy(values, i + 1, values, i, size - i - 1);
+            size--;
+            return true;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return Arrays.binarySearch(values, 0, size, low) >= 0;
+        }
+
+        @Override
+        int cardinality() {
+            return size;
+        }
+
+        @Override
+        int nextFrom(int from) {
+            if (from > Character.MAX_VALUE) {
+                return -1;
+            }
+            int i = Arrays.binarySearch(values, 0, size, (char) from);
+            if (i < 0) {
+                i = -i - 1;
+            }
+            return i < size ? values[i] : -1;
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int i = 0; i < size; i++) {
+                action.accept(high | values[i]);
+            }
+        }
+
+        @Override
+        Chunk or(Chunk other) {
+            if (other instanceof BitmapChunk bitmap) {
+                return bitmap.or(this);
+            }
+
+            ArrayChunk array = (ArrayChunk) other;
+            char[] merged = new char[size + array.size];
+            int i = 0, j = 0, n = 0;
+            while (i < size && j < array.size) {
+                if (values[i] < array.values[j]) merged[n++] = values[i++];
+                else if (values[i] > array.values[j]) merged[n++] = array.values[j++];
+                else {
+                    merged[n++] = values[i++];
+                    j++;
+                }
+            }
+            while (i < size) merged[n++] = values[i++];
+            while (j < array.size) merged[n++] = array.values[j++];
+
+            ArrayChunk union = new ArrayChunk();
+            union.values = merged;
+            union.size = n;
+            return n > ARRAY_LIMIT ? union.toBitmap() : union;
+        }
+
+        BitmapChunk toBitmap() {
+            BitmapChunk bitmap = new BitmapChunk();
+            for (int i = 0; i < size; i++) {
+                bitmap.words[values[i] >>> 6] |= 1L << values[i];
+            }
+            bitmap.cardinality = size;
+            return bitmap;
+        }
+
+        @Override
+        Chunk copy() {
+            ArrayChunk copy = new ArrayChunk();
+            copy.values = Arrays.copyOf(values, Math.max(size, 1));
+            copy.size = size;
+            return copy;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 16 + 16 + 2L * values.length;
+        }
+    }
+
+    // Bitmap of all 65536 possible numbers
+    private static final class BitmapChunk extends Chunk {
+        private final long[] words = new long[BITMAP_WORDS];
+        private int cardinality;
+
+        @Override
+        boolean add(char low) {
+            long before = words[low >>> 6];
+            words[low >>> 6] = before | 1L << low;
+            if (before == words[low >>> 6]) {
+                return false;
+            }
+            cardinality++;
+            return true;
+        }
+
+        @Override
+        boolean remove(char low) {
+            long before = words[low >>> 6];
+            words[low >>> 6] = before & ~(1L << low);
+            if (before == words[low >>> 6]) {
+                return false;
+            }
+            cardinality--;
+            return true;
+        }
+
+        @Override
+        boolean contains(char low) {
+            return (words[low >>> 6] & 1L << low) != 0;
+        }
+
+        @Override
+        int cardinality() {
+            return cardinality;
+        }
+
+        @Override
+        int nextFrom(int from) {
+            if (from > Character.MAX_VALUE) {
+                return -1;
+            }
+            int word = from >>> 6;
+            long bits = words[word] & -1L << from;
+            while (bits == 0) {
+                if (++word == BITMAP_WORDS) {
+                    return -1;
+                }
+                bits = words[word];
+            }
+            return word << 6 | Long.numberOfTrailingZeros(bits);
+        }
+
+        @Override
+        void forEach(int high, IntConsumer action) {
+            for (int word = 0; word < BITMAP_WORDS; word++) {
+                for (long bits = words[word]; bits != 0; bits &= bits - 1) {
+                    action.accept(high | word << 6 | Long.numberOfTrailingZeros(bits));
+                }
+            }
+        }
+
+        @Override
+        Chunk or(Chunk other) {
+            BitmapChunk union = (BitmapChunk) copy();
+            if (other instanceof BitmapChunk bitmap) {
+                union.cardinality = 0;
+                for (int word = 0; word < BITMAP_WORDS; word++) {
+                    union.words[word] |= bitmap.words[word];
+                    union.cardinality += Long.bitCount(union.words[word]);
+                }
+            } else {
+                ArrayChunk array = (ArrayChunk) other;
+                for (int i = 0; i < array.size; i++) {
+                    union.add(array.values[i]);
+                }
+            }
+            return union;
+        }
+
+        ArrayChunk toArray() {
+            ArrayChunk array = new ArrayChunk();
+            array.values = new char[cardinality];
+            forEach(0, low -> array.values[array.size++] = (char) low);
+            return array;
+        }
+
+        @Override
+        Chunk copy() {
+            BitmapChunk copy = new BitmapChunk();
+            System.arraycopy(words, 0, copy.words, 0, BITMAP_WORDS);
+            copy.cardinality = cardinality;
+            return copy;
+        }
+
+        @Override
+        long sizeInBytes() {
+            return 16 + 16 + 8L * BITMAP_WORDS;
+        }
+    }
+}
@@ -0,0 +1,75 @@
+package checks;
+
+import game.FeedbackTable;
+import players.GuessStrategy;
+
+import java.util.Arrays;
+import java.util.SplittableRandom;
+
+// Checks the partition of candidates by feedback and times a strategy's first guess
+// Partition: for random guesses and random sets of candidates, the counts from packed candidates
+// (see FeedbackTable.pack), from unpacked ones and from the feedback of each pair must all agree
+// Timing: the first guess of the strategy over every code, as the computer player makes it
+//   [length colors strategy seed] - exits with status 1 if a check fails
+public class StrategyCheck {
+    private static final long TABLE_BYTES = 64L << 20; // Same budget as MasterMind.feedbackTableBytes
+    private static int failures;
+
+    public static void main(String[] args) {
+        int length = args.length > 0 ? Integer.parseInt(args[0]) : 5;
+        int colors = args.length > 1 ? Integer.parseInt(args[1]) : 8;
+        GuessStrategy strategy = args.length > 2 ? GuessStrategy.valueOf(args[2]) : GuessStrategy.MINIMAX;
+        long seed = args.length > 3 ? Long.parseLong(args[3]) : 42;
+
+        partitions(new FeedbackTable(length, colors, 0), new SplittableRandom(seed));
+
+        FeedbackTable table = new FeedbackTable(length, colors, TABLE_BYTES);
+        int[] candidates = new int[table.size()];
+        Arrays.setAll(candidates, i -> i);
+        long start = System.nanoTime();
+        int guess = strategy.choose(table, candidates, candidates.length);
+        long nanos = System.nanoTime() - start;
+
+        System.out.printf("%dx%d %s: first guess %d of %d codes in %.2f s%n",
+                length, colors, strategy, guess, table.size(), nanos / 1e9);
+        if (failures > 0) {
+            System.out.println("FAILED: " + failures + " checks");
+            System.exit(1);
+        }
+        System.out.println("OK");
+    }
+
+    // Table without rows, so every partition is computed
+    private static void partitions(FeedbackTable table, SplittableRandom random) {
+        int[] packedCounts = new int[table.feedbackCount()];
+        int[] counts = new int[table.feedbackCount()];
+        int[] expected = new int[table.feedbackCount()];
+
+        for (int round = 0; round < 200; round++) {
+            int count = random.nextInt(1, Math.min(table.size(), 4096) + 1);
+            int[] candidates = random.ints(count, 0, table.size()).sorted().toArray();
+            long[] packed = table.pack(candidates, count);
+            int guess = random.nextInt(table.size());
+
+            Arrays.fill(packedCounts, 0);
+            Arrays.fill(counts, 0);
+            Arrays.fill(expected, 0);
+            table.partition(guess, candidates, packed, count, packedCounts);
+            table.partition(guess, candidates, count, counts);
+            for (int i = 0; i < count; i++) {
+                expected[table.feedback(guess, candidates[i])]++;
+            }
+
+            check(Arrays.equals(packedCounts, expected), "guess " + guess + ": packed partition " + Arrays.toString(packedCounts));
+            check(Arrays.equals(counts, expected), "guess " + guess + ": partition " + Arrays.toString(counts));
+        }
+    }
+
+    private static void check(boolean condition, String failure) {
+        if (!condition) {
+            if (failures++ < 20) {
+                System.out.println(failure);
+            }
+        }
+    }
+}
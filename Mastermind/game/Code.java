@@ -2,11 +2,38 @@ package game;
 
 import java.util.Random;
 
+// Code packed into longs: the color of position i in bits 4i..4i+3, and how many positions
+// have color c in bits 4c..4c+3, so feedback needs no arrays (see Feedback.score)
+// Up to 15 positions and colors 0..15
 public class Code {
-    private final int[] code;
+    public static final int MAX_LENGTH = 15;
+    public static final int MAX_COLOR = 15;
+
+    private final long positions;
+    private final long colorCounts;
+    private final int length;
 
     public Code(int[] code) {
-        this.code = code;
+        if (code.length > MAX_LENGTH) {
+            throw new IllegalArgumentException("Code longer than " + MAX_LENGTH + ": " + code.length);
+        }
+
+        long packed = 0;
+        for (int i = 0; i < code.length; i++) {
+            if (code[i] < 0 || code[i] > MAX_COLOR) {
+                throw new IllegalArgumentException("Color out of range: " + code[i]);
+            }
+            packed |= (long) code[i] << 4 * i;
+        }
+        this.positions = packed;
+        this.colorCounts = colorCounts(packed, code.length);
+        this.length = code.length;
+    }
+
+    private Code(long positions, int length) {
+        this.positions = positions;
+        this.colorCounts = colorCounts(positions, length);
+        this.length = length;
     }
 
     // String to code converter
@@ -28,13 +55,62 @@ public class Code {
         return new Code(kodTab);
     }
 
-    protected int[] giveCode() {
-        return code;
+    // Index of the code from 0 to colorNumber ^ codeLenght - 1, in the order codes are generated
+    public static Code fromIndex(int index) {
+        return new Code(pack(index, MasterMind.codeLenght, MasterMind.colorNumber), MasterMind.codeLenght);
+    }
+
+    public int toIndex() {
+        int index = 0;
+        for (int i = 0; i < length; i++) {
+            index = index * MasterMind.colorNumber + color(i) - 1;
+        }
+        return index;
+    }
+
+    // Positions of the code with the given index, colors from 1, position 0 most significant
+    static long pack(int index, int length, int colors) {
+        long packed = 0;
+        for (int i = length - 1; i >= 0; i--) {
+            packed |= (long) (index % colors + 1) << 4 * i;
+            index /= colors;
+        }
+        return packed;
+    }
+
+    // Color histogram of packed positions
+    static long colorCounts(long positions, int length) {
+        long counts = 0;
+        for (int i = 0; i < length; i++) {
+            counts += 1L << 4 * (int) (positions >>> 4 * i & 15);
+        }
+        return counts;
+    }
+
+    public int color(int position) {
+        return (int) (positions >>> 4 * position & 15);
+    }
+
+    public int length() {
+        return length;
+    }
+
+    long positions() {
+        return positions;
+    }
+
+    long colorCounts() {
+        return colorCounts;
     }
 
     @Override
     public String toString() {
-        return code[0] + ", " + code[1] + ", " + code[2] + ", " + code[3];
+        StringBuilder sb = new StringBuilder();
+        for (int i = 0; i < length; i++) {
+            if (i > 0) sb.append(", ");
+            sb.append(color(i));
+        }
+        return sb.toString();
     }
 
 }
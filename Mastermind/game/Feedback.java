@@ -1,41 +1,41 @@
 package game;
 
 public class Feedback {
+    private static final long LOW_BITS = 0x1111111111111111L; // Lowest bit of every 4-bit field
 
     // Feedback for the computer returns the number of hits and wrong positions
     // Based on this, the computer reduces the number of possible codes
     public static OutcomeFeedback checkGuess(Code secret, Code guess) {
-        int white = 0;
-        int black = 0;
-        int length = MasterMind.codeLenght;
-        int[] secretArr = secret.giveCode();
-        int[] guessArr = guess.giveCode();
-        boolean[] usedSecret = new boolean[length];
-        boolean[] guesses = new boolean[length];
+        int feedback = score(secret, guess);
+        return OutcomeFeedback.of(black(feedback), white(feedback));
+    }
 
+    // Packed feedback, black << 4 | white
+    public static int score(Code secret, Code guess) {
+        return score(secret.positions(), secret.colorCounts(), guess.positions(), guess.colorCounts(), secret.length());
+    }
 
-        // Black -> hit, correct placement
-        for (int i = 0; i < length; i++) {
-            if (secretArr[i] == guessArr[i]) {
-                black++;
-                usedSecret[i] = true;
-                guesses[i] = true;
-            }
-        }
+    // Packed feedback of codes packed like Code, in O(length + colors) without allocation
+    // Black -> positions with equal colors: 4-bit fields of the XOR that are zero
+    // White -> colors both codes have, i.e. the smaller count summed over colors, minus black
+    static int score(long secret, long secretCounts, long guess, long guessCounts, int length) {
+        long differ = secret ^ guess;
+        differ |= differ >>> 1;
+        differ |= differ >>> 2;
+        int black = length - Long.bitCount(differ & LOW_BITS);
 
-        // White -> incorrect placement
-        for (int i = 0; i < length; i++) {
-            if (!guesses[i]) {
-                for (int j = 0; j < length; j++) {
-                    if (!usedSecret[j] && guessArr[i] == secretArr[j]) {
-                        white++;
-                        guesses[i] = true;
-                        usedSecret[j] = true;
-                        break;
-                    }
-                }
-            }
+        int common = 0;
+        for (long a = secretCounts, b = guessCounts; a != 0 && b != 0; a >>>= 4, b >>>= 4) {
+            common += (int) Math.min(a & 15, b & 15);
         }
-        return new OutcomeFeedback(black, white);
+        return black << 4 | common - black;
+    }
+
+    public static int black(int feedback) {
+        return feedback >>> 4;
+    }
+
+    public static int white(int feedback) {
+        return feedback & 15;
     }
 }
@@ -0,0 +1,217 @@
+package game;
+
+import java.util.LinkedHashMap;
+import java.util.Map;
+
+// Feedback of every guess against every secret, codes given as indexes (see Code.toIndex)
+// Each black/white pair is one byte, black * (length + 1) + white (below 128 up to 10 positions)
+// Small boards get the whole guess x secret table up front; on larger ones rows are filled
+// when a guess is first used and kept in a cache bounded by the memory budget
+// Boards where not even one row fits the budget compute the feedback on the fly
+public class FeedbackTable {
+    private final int length;
+    private final int colors;
+    private final int size; // colors ^ length codes
+    private final byte[][] table; // Full table, null when it does not fit
+    private final Map<Integer, byte[]> rows; // Cached rows by guess, null when not even one fits
+    private final byte[] bytes = new byte[256]; // Table byte by packed feedback (see Feedback.score)
+
+    public FeedbackTable(int length, int colors, long maxBytes) {
+        if (length < 1 || length > 10 || colors < 1 || colors > Code.MAX_COLOR
+                || Math.pow(colors, length) > Integer.MAX_VALUE) {
+            throw new IllegalArgumentException("Board too large: " + length + " positions, " + colors + " colors.");
+        }
+
+        this.length = length;
+        this.colors = colors;
+        this.size = (int) Math.round(Math.pow(colors, length));
+        for (int black = 0; black <= length; black++) {
+            for (int white = 0; black + white <= length; white++) {
+                bytes[black << 4 | white] = (byte) encode(black, white);
+            }
+        }
+
+        if ((long) size * size <= maxBytes) {
+            table = new byte[size][];
+            for (int guess = 0; guess < size; guess++) {
+                table[guess] = computeRow(guess);
+            }
+            rows = null;
+        } else if (size <= maxBytes) {
+            table = null;
+            int cachedRows = (int) (maxBytes / size);
+            rows = new LinkedHashMap<>(16, 0.75f, true) {
+                @Override
+                protected boolean removeEldestEntry(Map.Entry<Integer, byte[]> eldest) {
+                    return size() > cachedRows;
+                }
+            };
+        } else {
+            table = null;
+            rows = null;
+        }
+    }
+
+    public int size() {
+        return size;
+    }
+
+    // Number of distinct feedback values, i.e. the size of a counting array indexed by feedback
+    public int feedbackCount() {
+        return (length + 1) * (length + 1);
+    }
+
+    public int encode(int black, int white) {
+        return black * (length + 1) + white;
+    }
+
+    public int encode(OutcomeFeedback feedback) {
+        return encode(feedback.black, feedback.white);
+    }
+
+    public OutcomeFeedback decode(int feedback) {
+        return OutcomeFeedback.of(feedback / (length + 1), feedback % (length + 1));
+    }
+
+    public int feedback(int guess, int secret) {
+        byte[] row = row(guess);
+        if (row != null) {
+            return row[secret];
+        }
+        long guessCode = Code.pack(guess, length, colors);
+        return compute(guessCode, Code.colorCounts(guessCode, length), secret);
+    }
+
+    // Keeps the candidates that give the feedback for the guess, in order; returns how many are left
+    public int filter(int guess, int feedback, int[] candidates, int count) {
+        return filter(guess, feedback, candidates, count, true);
+    }
+
+    // Like filter; without fillRow a row missing from the cache is not computed, the feedback is
+    // computed per candidate instead, e.g. for small batches checked against many guesses
+    public int filter(int guess, int feedback, int[] candidates, int count, boolean fillRow) {
+        byte[] row = fillRow ? row(guess) : table != null ? table[guess] : cachedRow(guess);
+        int kept = 0;
+        if (row != null) {
+            for (int i = 0; i < count; i++) {
+                if (row[candidates[i]] == feedback) {
+                    candidates[kept++] = candidates[i];
+                }
+            }
+        } else {
+            long guessCode = Code.pack(guess, length, colors);
+            long guessCounts = Code.colorCounts(guessCode, length);
+            for (int i = 0; i < count; i++) {
+                if (compute(guessCode, guessCounts, candidates[i]) == feedback) {
+                    candidates[kept++] = candidates[i];
+                }
+            }
+        }
+        return kept;
+    }
+
+    // Packed codes of the candidates for repeated partition calls, a code and its color counts
+    // per candidate, so scoring many guesses does not unpack every candidate again for each one
+    // Null when the full table is in memory and partition never computes
+    public long[] pack(int[] candidates, int count) {
+        if (table != null) {
+            return null;
+        }
+        long[] packed = new long[2 * count];
+        for (int i = 0; i < count; i++) {
+            long code = Code.pack(candidates[i], length, colors);
+            packed[2 * i] = code;
+            packed[2 * i + 1] = Code.colorCounts(code, length);
+        }
+        return packed;
+    }
+
+    // Adds to counts[feedback] the candidates giving each feedback for the guess
+    // Uses the full table or an already cached row, and otherwise computes without caching,
+    // so scoring every possible guess does not flush the rows of the guesses actually played
+    public void partition(int guess, int[] candidates, int count, int[] counts) {
+        partition(guess, candidates, null, count, counts);
+    }
+
+    // Like partition, with the candidates also given packed (see pack), or null to pack them here
+    public void partition(int guess, int[] candidates, long[] packed, int count, int[] counts) {
+        byte[] row = table != null ? table[guess] : cachedRow(guess);
+        if (row != null) {
+            for (int i = 0; i < count; i++) {
+                counts[row[candidates[i]]]++;
+            }
+        } else if (packed != null) {
+            long guessCode = Code.pack(guess, length, colors);
+            long guessCounts = Code.colorCounts(guessCode, length);
+            for (int i = 0; i < count; i++) {
+                counts[encode(Feedback.score(packed[2 * i], packed[2 * i + 1], guessCode, guessCounts, length))]++;
+            }
+        } else {
+            long guessCode = Code.pack(guess, length, colors);
+            long guessCounts = Code.colorCounts(guessCode, length);
+            for (int i = 0; i < count; i++) {
+                counts[compute(guessCode, guessCounts, candidates[i])]++;
+            }
+        }
+    }
+
+    private byte[] cachedRow(int guess) {
+        if (rows == null) {
+            return null;
+        }
+        synchronized (rows) {
+            return rows.get(guess);
+        }
+    }
+
+    // Row of the guess, from the table or the cache; null if rows do not fit the budget
+    private byte[] row(int guess) {
+        if (table != null) {
+            return table[guess];
+        }
+        if (rows == null) {
+            return null;
+        }
+        synchronized (rows) {
+            return rows.computeIfAbsent(guess, this::computeRow);
+        }
+    }
+
+    // Feedback of the guess against all secrets, walking the packed secret like an odometer
+    private byte[] computeRow(int guess) {
+        long guessCode = Code.pack(guess, length, colors);
+        long guessCounts = Code.colorCounts(guessCode, length);
+        long secret = Code.pack(0, length, colors);
+        long secretCounts = Code.colorCounts(secret, length);
+        byte[] row = new byte[size];
+
+        for (int index = 0; index < size; index++) {
+            row[index] = (byte) encode(Feedback.score(guessCode, guessCounts, secret, secretCounts, length));
+
+            // Next secret: the last position turns fastest, colors run from 1 to colors
+            for (int i = length - 1; i >= 0; i--) {
+                int color = (int) (secret >>> 4 * i & 15);
+                secretCounts -= 1L << 4 * color;
+                if (color < colors) {
+                    secret += 1L << 4 * i;
+                    secretCounts += 1L << 4 * (color + 1);
+                    break;
+                }
+                secret -= (long) (color - 1) << 4 * i;
+                secretCounts += 1L << 4;
+            }
+        }
+        return row;
+    }
+
+    // Feedback of a packed guess against the code with the given index
+    private int compute(long guess, long guessCounts, int secret) {
+        long secretCode = Code.pack(secret, length, colors);
+        return encode(Feedback.score(secretCode, Code.colorCounts(secretCode, length), guess, guessCounts, length));
+    }
+
+    // Table byte of a packed feedback (see Feedback.score)
+    private int encode(int feedback) {
+        return bytes[feedback];
+    }
+}
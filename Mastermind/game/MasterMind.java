@@ -8,6 +8,9 @@ public class MasterMind {
     // Game settings
     public  static int codeLenght = 4;
     public  static int colorNumber = 6;
+    public  static long feedbackTableBytes = 64L << 20; // Memory for precomputed feedback of the computer player
+    public  static int candidateLimit = 1 << 20; // Possible codes the computer keeps as a list; above it they are filtered by index
+    public  static GuessStrategy guessStrategy = GuessStrategy.FIRST_CANDIDATE; // How the computer picks its guesses
 
     // Game mechanism
     public static void start() {
@@ -59,7 +62,7 @@ public class MasterMind {
 
             //OutcomeFeedback outcome = PlayerFeedback.giveFeedback(secret, shoot);
 
-            if (outcome.give()[0] == codeLenght) {
+            if (outcome.black == codeLenght) {
                 System.out.println("Computer guessed the code in: " + tries + " tries");
                 guessed = true;
             } else {
@@ -82,7 +85,7 @@ public class MasterMind {
             Code playersCode = Code.stringToCode(code);
             OutcomeFeedback outcome = PlayerFeedback.giveFeedback(secret, playersCode);
 
-            if (outcome.give()[0] == codeLenght) {
+            if (outcome.black == codeLenght) {
                 System.out.println("You won in " + tries + " tries");
                 guessed = true;
             } else {
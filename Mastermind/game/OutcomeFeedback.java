@@ -1,20 +1,32 @@
 package game;
 
-import java.util.Objects;
-
 // Helper class holding feedback for the computer player
 // Can easily be compared to other feedback to deduce the best next move
+// Instances are interned, one per black/white pair, so feedback never allocates
 public class OutcomeFeedback {
+    private static final OutcomeFeedback[][] INTERNED = new OutcomeFeedback[Code.MAX_LENGTH + 1][Code.MAX_LENGTH + 1];
+
+    static {
+        for (int black = 0; black <= Code.MAX_LENGTH; black++) {
+            for (int white = 0; black + white <= Code.MAX_LENGTH; white++) {
+                INTERNED[black][white] = new OutcomeFeedback(black, white);
+            }
+        }
+    }
+
     public final int black;
     public final int white;
 
-    public OutcomeFeedback(int black, int white) {
+    private OutcomeFeedback(int black, int white) {
         this.black = black;
         this.white = white;
     }
 
-    public int[] give() {
-        return new int[]{black, white};
+    public static OutcomeFeedback of(int black, int white) {
+        if (black < 0 || white < 0 || black + white > Code.MAX_LENGTH) {
+            throw new IllegalArgumentException("Impossible feedback: " + black + " black, " + white + " white");
+        }
+        return INTERNED[black][white];
     }
 
     @Override
@@ -26,7 +38,7 @@ public class OutcomeFeedback {
 
     @Override
     public int hashCode() {
-        return Objects.hash(black, white);
+        return black * (Code.MAX_LENGTH + 1) + white;
     }
 
 }
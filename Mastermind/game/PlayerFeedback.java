@@ -5,40 +5,33 @@ public class PlayerFeedback {
     public static OutcomeFeedback giveFeedback(Code secret, Code shoot) {
         int black = 0;
         int white = 0;
-        int length = MasterMind.codeLenght;
-        int[] secretArr = secret.giveCode();
-        int[] shootArr = shoot.giveCode();
+        int length = secret.length();
         char[] feedback = new char[length];
-        boolean[] usedSecret = new boolean[length];
-        boolean[] usedShots = new boolean[length];
+        long unmatched = secret.colorCounts(); // Secret colors not matched yet, 4 bits per color
 
         for (int i = 0; i < length; i++) {
-            if (secretArr[i] == shootArr[i]) {
+            if (secret.color(i) == shoot.color(i)) {
                 black ++;
                 feedback[i] = 'C';
-                usedShots[i] = true;
-                usedSecret[i] = true;
+                unmatched -= 1L << 4 * secret.color(i);
             }
         }
 
         // Incorrect placement, color hit
         for (int i = 0; i < length; i++) {
-            if (!usedShots[i]) { // Avoids the same color multiple hits displayed problem
-                boolean hit = false;
-                for (int j = 0; j < length; j++) {
-                    if (!usedSecret[j] && shootArr[i] == secretArr[j]) {
-                        white++;
-                        feedback[i] = 'B';
-                        usedSecret[j] = true;
-                        hit = true;
-                        break;
-                    }
+            if (feedback[i] != 'C') { // Avoids the same color multiple hits displayed problem
+                int color = shoot.color(i);
+                if ((unmatched >>> 4 * color & 15) > 0) {
+                    white++;
+                    feedback[i] = 'B';
+                    unmatched -= 1L << 4 * color;
+                } else {
+                    feedback[i] = 'X';
                 }
-                if (!hit) feedback[i] = 'X';
             }
         }
         System.out.println(feedback);
 
-        return new OutcomeFeedback(black, white);
+        return OutcomeFeedback.of(black, white);
     }
 }
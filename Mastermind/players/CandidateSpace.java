@@ -0,0 +1,110 @@
+package players;
+
+import game.FeedbackTable;
+
+import java.util.Arrays;
+
+// Codes still possible for the computer player, by index
+// While there are more than the limit they are not stored: the space is every code consistent
+// with the feedback so far, and new feedback is applied by streaming over all indexes in blocks,
+// each block filtered by every feedback, newest first (by rows already in memory, otherwise
+// computing the feedback, so blocks do not evict each other's rows). Once the survivors fit the
+// limit they are materialized and later feedback only filters them, so memory is bounded by the
+// limit and one block, never by all colors ^ length codes
+class CandidateSpace {
+    private static final int BLOCK = 4096; // Indexes filtered at a time while the space is implicit
+
+    private final FeedbackTable table;
+    private final int limit; // Most candidates kept as a list
+    private int[] guesses = new int[8]; // Feedback so far, guess and its table byte
+    private int[] feedbacks = new int[8];
+    private int constraints;
+    private int[] candidates; // Ascending, null while the space is implicit
+    private int count;
+    private int first; // Lowest possible code, -1 if there is none
+
+    CandidateSpace(FeedbackTable table, int limit) {
+        this.table = table;
+        this.limit = limit;
+        this.count = table.size();
+        this.first = 0;
+        if (count <= limit) {
+            candidates = new int[count];
+            for (int i = 0; i < count; i++) {
+                candidates[i] = i;
+            }
+        }
+    }
+
+    // Keeps only the codes that give the feedback for the guess
+    void add(int guess, int feedback) {
+        if (candidates != null) {
+            count = table.filter(guess, feedback, candidates, count);
+            first = count > 0 ? candidates[0] : -1;
+            return;
+        }
+
+        if (constraints == guesses.length) {
+            guesses = Arrays.copyOf(guesses, constraints * 2);
+            feedbacks = Arrays.copyOf(feedbacks, constraints * 2);
+        }
+        guesses[constraints] = guess;
+        feedbacks[constraints++] = feedback;
+        scan();
+    }
+
+    // One pass over all codes; the survivors are kept only if they fit the limit
+    private void scan() {
+        int size = table.size();
+        int[] block = new int[BLOCK];
+        int[] survivors = new int[Math.min(limit, BLOCK)];
+        int found = 0;
+        first = -1;
+
+        for (long start = 0; start < size; start += BLOCK) {
+            int n = (int) Math.min(BLOCK, size - start);
+            for (int i = 0; i < n; i++) {
+                block[i] = (int) start + i;
+            }
+            for (int k = constraints - 1; k >= 0 && n > 0; k--) {
+                n = table.filter(guesses[k], feedbacks[k], block, n, false);
+            }
+            if (n == 0) {
+                continue;
+            }
+
+            if (first < 0) {
+                first = block[0];
+            }
+            if (survivors != null && (long) found + n > limit) {
+                survivors = null; // Still too many to keep
+            } else if (survivors != null) {
+                if (found + n > survivors.length) {
+                    survivors = Arrays.copyOf(survivors, (int) Math.min(limit, Math.max(found + n, survivors.length * 2L)));
+                }
+                System.arraycopy(block, 0, survivors, found, n);
+            }
+            found += n;
+        }
+
+        count = found;
+        candidates = survivors;
+    }
+
+    boolean isMaterialized() {
+        return candidates != null;
+    }
+
+    // Materialized candidates; only the first count are valid
+    int[] candidates() {
+        return candidates;
+    }
+
+    int count() {
+        return count;
+    }
+
+    int first() {
+        return first;
+    }
+}
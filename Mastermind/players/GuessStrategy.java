@@ -0,0 +1,96 @@
+package players;
+
+import game.FeedbackTable;
+
+import java.util.Arrays;
+import java.util.concurrent.ForkJoinPool;
+import java.util.stream.IntStream;
+
+// How the computer player picks its next guess from the codes still possible
+// Apart from the first one, strategies try every code as a guess and score the partition of the
+// candidates by feedback it would produce; ties go to a guess that can still win, then to the lowest code
+public enum GuessStrategy {
+    FIRST_CANDIDATE, // First code still possible; no scoring, the cheapest
+    MINIMAX, // Knuth: smallest worst-case partition
+    EXPECTED_SIZE, // Smallest expected partition, i.e. sum of squared partition sizes
+    MOST_PARTS; // Most non-empty partitions
+
+    // Guess x candidate pairs from which scoring is split across the common fork/join pool
+    private static final long PARALLEL_THRESHOLD = 1 << 18;
+
+    // Index of the next guess; candidates are code indexes in ascending order
+    public int choose(FeedbackTable table, int[] candidates, int count) {
+        if (this == FIRST_CANDIDATE || count <= 2) {
+            return candidates[0];
+        }
+
+        int size = table.size();
+        long[] packed = table.pack(candidates, count); // Shared by all guesses and workers
+        if ((long) size * count < PARALLEL_THRESHOLD) {
+            return best(table, candidates, packed, count, 0, size).guess();
+        }
+
+        // Ranges of guesses scored by the workers, each with its own partition counters;
+        // the reduction uses the order of the sequential scan, so the choice is the same
+        int chunks = Math.min(size, ForkJoinPool.getCommonPoolParallelism() * 8);
+        return IntStream.range(0, chunks).parallel()
+                .mapToObj(chunk -> best(table, candidates, packed, count,
+                        (int) ((long) size * chunk / chunks), (int) ((long) size * (chunk + 1) / chunks)))
+                .reduce(Choice::better)
+                .orElseThrow()
+                .guess();
+    }
+
+    // Best of the guesses from first to last - 1
+    private Choice best(FeedbackTable table, int[] candidates, long[] packed, int count, int first, int last) {
+        int[] partitions = new int[table.feedbackCount()];
+        long bestScore = Long.MAX_VALUE;
+        int best = -1;
+        boolean bestIsCandidate = false;
+        int next = Arrays.binarySearch(candidates, 0, count, first); // First candidate not below the guess
+        if (next < 0) next = -next - 1;
+
+        for (int guess = first; guess < last; guess++) {
+            boolean isCandidate = next < count && candidates[next] == guess;
+            if (isCandidate) next++;
+
+            Arrays.fill(partitions, 0);
+            table.partition(guess, candidates, packed, count, partitions);
+            long score = score(partitions);
+            if (score < bestScore || score == bestScore && isCandidate && !bestIsCandidate) {
+                bestScore = score;
+                best = guess;
+                bestIsCandidate = isCandidate;
+            }
+        }
+        return new Choice(bestScore, bestIsCandidate, best);
+    }
+
+    // Scored guess; lower score first, then a guess that is still possible, then the lower code
+    private record Choice(long score, boolean candidate, int guess) {
+        Choice better(Choice other) {
+            if (score != other.score) return score < other.score ? this : other;
+            if (candidate != other.candidate) return candidate ? this : other;
+            return guess <= other.guess ? this : other;
+        }
+    }
+
+    // Score of a guess from its partition sizes, lower is better
+    long score(int[] partitions) {
+        long score = 0;
+        switch (this) {
+            case MINIMAX -> {
+                for (int size : partitions) score = Math.max(score, size);
+            }
+            case EXPECTED_SIZE -> {
+                for (int size : partitions) score += (long) size * size;
+            }
+            case MOST_PARTS -> {
+                for (int size : partitions) if (size > 0) score--;
+            }
+            case FIRST_CANDIDATE -> {
+            }
+        }
+        return score;
+    }
+}
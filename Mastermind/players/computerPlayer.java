@@ -2,47 +2,36 @@ package players;
 
 import game.*;
 
-import java.util.ArrayList;
-import java.util.List;
-
 public class computerPlayer {
-    private List<Code> possibleCodes;
-    private final int codeLength = MasterMind.codeLenght;
-    private final int numberOfColors = MasterMind.colorNumber;
+    private final FeedbackTable feedbackTable;
+    private final GuessStrategy strategy;
+    private final CandidateSpace possibleCodes;
 
     public computerPlayer() {
-        this.possibleCodes = generatePossibleCodes();
-    }
-
-    private List<Code> generatePossibleCodes() {
-        List<Code> codes = new ArrayList<>();
-        recGeneration(new int[codeLength], 0, codes);
-        return codes;
+        this(new FeedbackTable(MasterMind.codeLenght, MasterMind.colorNumber, MasterMind.feedbackTableBytes),
+                MasterMind.guessStrategy);
     }
 
-    private void recGeneration(int[] code, int position, List<Code> codes) {
-        if (position == codeLength) {
-            codes.add(new Code(code.clone()));
-            return;
-        }
-
-        for (int i = 1; i <= numberOfColors; i++) {
-            code[position] = i;
-            recGeneration(code, position + 1, codes);
-        }
+    // The table can be shared by players of the same board
+    public computerPlayer(FeedbackTable feedbackTable, GuessStrategy strategy) {
+        this.feedbackTable = feedbackTable;
+        this.strategy = strategy;
+        this.possibleCodes = new CandidateSpace(feedbackTable, MasterMind.candidateLimit);
     }
 
+    // While too many codes are possible to keep them as a list, the first possible code is guessed
     public Code guess() {
-        if (possibleCodes.isEmpty()) return null;
-        return possibleCodes.get(0);
+        if (possibleCodes.count() == 0) return null;
+        if (!possibleCodes.isMaterialized()) return Code.fromIndex(possibleCodes.first());
+        return Code.fromIndex(strategy.choose(feedbackTable, possibleCodes.candidates(), possibleCodes.count()));
     }
 
     // Called from original guess and its feedback
     public void updatePossibleCodes(Code code, OutcomeFeedback feedback) {
-        this.possibleCodes = possibleCodes.stream()
-                .filter(k -> Feedback.checkGuess(code, k).equals(feedback))
-                .toList();
+        possibleCodes.add(code.toIndex(), feedbackTable.encode(feedback));
     }
 
-
+    public int possibleCodesLeft() {
+        return possibleCodes.count();
+    }
 }